@@ -31,6 +31,11 @@ public abstract class AbstractCondition<T> implements Condition<T> {
         return this;
     }
 
+    @Override
+    public String description() {
+        return description.get();
+    }
+
     @Override
     public String toString() {
         return description.get();
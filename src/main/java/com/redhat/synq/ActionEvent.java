@@ -20,6 +20,7 @@
 package com.redhat.synq;
 
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * An instantaneously triggered Event that is simply a wrapper around some
@@ -43,4 +44,21 @@ public class ActionEvent extends AbstractEvent<Void> {
 
         return null;
     }
+
+    /**
+     * Runs the action on the calling thread, returning an already completed future.
+     */
+    @Override
+    public CompletableFuture<Void> waitAsync(Duration duration) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+
+        try {
+            action.run();
+            future.complete(null);
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        }
+
+        return future;
+    }
 }
@@ -0,0 +1,181 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Learns the time it takes each described condition to be met, and polls around it.
+ *
+ * @see PollingPolicy#adaptive(Duration, Duration)
+ */
+final class AdaptivePollingPolicy implements PollingPolicy {
+    /**
+     * How many waits on a condition must succeed before its learned times are relied upon.
+     */
+    static final int MIN_SAMPLES = 5;
+
+    /**
+     * A bound on the memory used, in case descriptions are not as constant as they should be.
+     * Conditions beyond this many are polled as if nothing had been learned about them.
+     */
+    static final int MAX_CONDITIONS = 1024;
+
+    /**
+     * How many of the most recent waits each sketch holds.
+     */
+    private static final int WINDOW = 32;
+
+    private static final double EARLY_QUANTILE = 0.05;
+    private static final double LATE_QUANTILE = 0.99;
+
+    /**
+     * How many polls to spread between the early and late quantiles.
+     */
+    private static final int POLLS_WHILE_LIKELY = 20;
+
+    private final Duration minInterval;
+    private final Duration maxInterval;
+    private final long minNanos;
+    private final long maxNanos;
+    private final PollingPolicy learning;
+    private final ConcurrentMap<String, Times> times = new ConcurrentHashMap<>();
+
+    AdaptivePollingPolicy(Duration minInterval, Duration maxInterval) {
+        this.minInterval = Objects.requireNonNull(minInterval, "minInterval");
+        this.maxInterval = Objects.requireNonNull(maxInterval, "maxInterval");
+        this.minNanos = TimeKeeper.toNanos(minInterval);
+        this.maxNanos = TimeKeeper.toNanos(maxInterval);
+
+        if (minNanos <= 0 || maxNanos < minNanos) {
+            throw new IllegalArgumentException("Intervals must be positive, and the maximum must "
+                    + "not be less than the minimum, but were " + minInterval + " and "
+                    + maxInterval);
+        }
+
+        // A gentle backoff, so that early samples do not overshoot the true time by much.
+        this.learning = PollingPolicy.exponential(minInterval, 1.25, maxInterval);
+    }
+
+    /**
+     * Used only if the event does not ask for a policy specific to its condition.
+     */
+    @Override
+    public long nextDelayNanos(int evaluations, long elapsedNanos, long previousDelayNanos) {
+        return learning.nextDelayNanos(evaluations, elapsedNanos, previousDelayNanos);
+    }
+
+    @Override
+    public PollingPolicy forCondition(String description) {
+        Times learned = times.get(description);
+
+        if (learned == null) {
+            if (times.size() >= MAX_CONDITIONS) {
+                return learning;
+            }
+
+            learned = times.computeIfAbsent(description, d -> new Times());
+        }
+
+        return new Learned(learned);
+    }
+
+    @Override
+    public String toString() {
+        return "adaptively, between " + minInterval + " and " + maxInterval;
+    }
+
+    private long clamp(long nanos) {
+        return Math.max(minNanos, Math.min(maxNanos, nanos));
+    }
+
+    /**
+     * What is known about when a condition is met. A poll only shows that a condition was met
+     * some time after the previous poll, so both ends of that window are recorded. Polling begins
+     * in earnest from the early quantile of the window's start, so that time spent between polls
+     * while learning does not bias later waits to poll later and later.
+     */
+    private static final class Times {
+        final QuantileSketch notYetMet = new QuantileSketch(WINDOW);
+        final QuantileSketch met = new QuantileSketch(WINDOW);
+    }
+
+    /**
+     * The policy for a single wait on a condition, based on what was learned up to the start of
+     * the wait.
+     */
+    private final class Learned implements PollingPolicy {
+        private final Times times;
+        private final boolean learned;
+        private final long early;
+        private final long late;
+
+        /**
+         * When the condition was last found not to be met. Policies are consulted by one thread
+         * at a time during a wait.
+         */
+        private long notYetMet;
+
+        Learned(Times times) {
+            this.times = times;
+            this.learned = times.met.count() >= MIN_SAMPLES;
+            this.early = learned ? times.notYetMet.quantile(EARLY_QUANTILE) : 0;
+            this.late = learned ? times.met.quantile(LATE_QUANTILE) : 0;
+        }
+
+        @Override
+        public long nextDelayNanos(int evaluations, long elapsedNanos, long previousDelayNanos) {
+            notYetMet = elapsedNanos;
+
+            if (!learned) {
+                return learning.nextDelayNanos(evaluations, elapsedNanos, previousDelayNanos);
+            }
+
+            if (elapsedNanos < early) {
+                return clamp(early - elapsedNanos);
+            }
+
+            if (elapsedNanos < late) {
+                return clamp((late - early) / POLLS_WHILE_LIKELY);
+            }
+
+            return clamp(previousDelayNanos * 2);
+        }
+
+        @Override
+        public void conditionMet(int evaluations, long elapsedNanos) {
+            // Polls made before the early quantile only show that the condition was not met
+            // before it was expected to be, which is no reason to expect it any sooner.
+            // Recording them would have the next waits poll all through the likely window again.
+            times.notYetMet.record(learned
+                    ? Math.max(notYetMet, Math.min(early, elapsedNanos))
+                    : notYetMet);
+            times.met.record(elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return AdaptivePollingPolicy.this.toString();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A single non-blocking wait on a polled condition. Rather than a thread sleeping between
+ * evaluations, each evaluation is a task scheduled on a {@link PollScheduler}, and no thread is
+ * held while the wait is idle. Cancelling the returned future stops any further evaluations.
+ *
+ * @see DefaultPollEvent#waitAsync(Duration)
+ * @see ThreadedPollEvent#waitAsync(Duration)
+ */
+final class AsyncPoll<T> {
+    private final Event<T> event;
+    private final BooleanSupplier poll;
+    private final Supplier<T> lastResult;
+    private final PollingPolicy pollingPolicy;
+    private final RateLimiter rateLimiter;
+    private final Nudges nudges;
+    private final TimeKeeper timeKeeper;
+    private final Executor evaluator;
+    private final PollScheduler scheduler;
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+    private final Runnable onNudge = this::bringForward;
+
+    private Duration duration;
+    private long timeoutNanos;
+    private long start;
+    private volatile Future<?> nextPoll;
+
+    /**
+     * Only accessed by evaluations, which never run concurrently and happen-after one another
+     * through the scheduler's hand offs.
+     */
+    private int evaluations;
+    private long delay;
+    private long seen;
+    private boolean heldBack;
+
+    /**
+     * @param event The event being awaited, used to describe timeouts.
+     * @param poll Evaluates the condition once, returning true if it was met. Exceptions thrown are
+     * used to complete the wait exceptionally, so this should handle ignoring exceptions itself.
+     * @param lastResult Supplies the result of the wait once poll returns true.
+     * @param pollingPolicy The policy for this wait, already specific to its condition.
+     * @param rateLimiter Limits evaluations, or null if they are not limited. Evaluations held
+     * back by it are rescheduled rather than waited for.
+     * @param nudges Nudges which should bring the next evaluation forward.
+     * @param evaluator Where evaluations run. Scheduled polls hand their evaluation to this.
+     */
+    AsyncPoll(Event<T> event, BooleanSupplier poll, Supplier<T> lastResult,
+            PollingPolicy pollingPolicy, RateLimiter rateLimiter, Nudges nudges,
+            TimeKeeper timeKeeper, Executor evaluator, PollScheduler scheduler) {
+        this.event = event;
+        this.poll = poll;
+        this.lastResult = lastResult;
+        this.pollingPolicy = pollingPolicy;
+        this.rateLimiter = rateLimiter;
+        this.nudges = nudges;
+        this.timeKeeper = timeKeeper;
+        this.evaluator = evaluator;
+        this.scheduler = scheduler;
+    }
+
+    CompletableFuture<T> start(Duration duration) {
+        this.duration = duration;
+        this.timeoutNanos = TimeKeeper.toNanos(duration);
+        this.start = timeKeeper.nanoTime();
+
+        nudges.addListener(onNudge);
+
+        future.whenComplete((result, throwable) -> {
+            nudges.removeListener(onNudge);
+
+            Future<?> scheduled = nextPoll;
+
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        });
+
+        evaluate();
+
+        return future;
+    }
+
+    private void evaluate() {
+        try {
+            evaluator.execute(this::poll);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new SynqException(e));
+        }
+    }
+
+    private void poll() {
+        if (future.isDone()) {
+            return;
+        }
+
+        seen = nudges.generation();
+
+        long throttled = rateLimiter == null ? 0 : rateLimiter.tryAcquire(heldBack);
+        heldBack = throttled > 0;
+
+        if (heldBack) {
+            scheduleNext(throttled, timeKeeper.nanoTime() - start);
+            return;
+        }
+
+        try {
+            if (poll.getAsBoolean()) {
+                pollingPolicy.conditionMet(evaluations + 1, timeKeeper.nanoTime() - start);
+                future.complete(lastResult.get());
+                return;
+            }
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+            return;
+        } finally {
+            if (rateLimiter != null) {
+                rateLimiter.release();
+            }
+        }
+
+        long elapsed = timeKeeper.nanoTime() - start;
+
+        delay = Math.max(0, pollingPolicy.nextDelayNanos(++evaluations, elapsed, delay));
+
+        scheduleNext(delay, elapsed);
+    }
+
+    private void scheduleNext(long delay, long elapsed) {
+        if (elapsed >= timeoutNanos) {
+            future.completeExceptionally(new TimeoutException(event, duration));
+            return;
+        }
+
+        if (nudges.generation() != seen) {
+            delay = 0;
+        }
+
+        try {
+            // Never wait past the deadline, so that the last evaluation happens right at it.
+            nextPoll = scheduler.schedule(this::evaluate, Math.min(delay, timeoutNanos - elapsed),
+                    TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new SynqException(e));
+            return;
+        }
+
+        // Cancelled while scheduling; make sure the poll we just scheduled does not linger.
+        if (future.isDone()) {
+            nextPoll.cancel(false);
+        } else if (nudges.generation() != seen) {
+            // Nudged while scheduling, possibly before the poll was there to be brought forward.
+            bringForward();
+        }
+    }
+
+    /**
+     * Runs the next evaluation now rather than when it is scheduled. Does nothing if it is already
+     * running, as it will see the nudge itself.
+     */
+    private void bringForward() {
+        Future<?> scheduled = nextPoll;
+
+        if (scheduled == null || !scheduled.cancel(false)) {
+            return;
+        }
+
+        try {
+            scheduler.execute(this::evaluate);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new SynqException(e));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Looks up the current values of many keys in one call, for backends that support bulk reads. A
+ * {@link BatchPoller} uses one to poll every key it is waiting on with a single round trip per
+ * tick, rather than one per key.
+ *
+ * @param <K> The type of key, such as a job id.
+ * @param <V> The type of value looked up for each key, such as a job's status.
+ */
+@Experimental
+@FunctionalInterface
+public interface BatchLookup<K, V> {
+    /**
+     * @param keys The distinct keys currently being waited on. Never empty.
+     * @return The value of each key. Keys missing from the map are treated as having a null value.
+     */
+    Map<K, V> lookUp(Set<K> keys) throws Exception;
+}
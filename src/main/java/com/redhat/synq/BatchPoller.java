@@ -0,0 +1,209 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Polls many keyed conditions at once, such as "job X is DONE" for thousands of jobs, using a
+ * {@link BatchLookup} which fetches the values of many keys in one call. Every tick, the poller
+ * gathers the keys of all events currently being waited on, looks them all up together, and
+ * hands each waiter the value for its key. So however many events are awaited, there is about
+ * one round trip to the backend per polling interval.
+ *
+ * <p>Ticks run on a {@link PollScheduler}, and only while something is being waited on.
+ *
+ * <pre><code>
+ * BatchPoller&lt;String, Status&gt; jobs = new BatchPoller&lt;&gt;(jobService::statuses,
+ *         Duration.ofSeconds(1));
+ *
+ * jobs.expect("job-1", status -&gt; status == DONE).waitUpTo(5, MINUTES);
+ * </code></pre>
+ */
+@Experimental
+public class BatchPoller<K, V> {
+    private final BatchLookup<K, V> lookup;
+    private final long intervalNanos;
+    private final PollScheduler scheduler;
+
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean ticking = new AtomicBoolean();
+
+    public BatchPoller(BatchLookup<K, V> lookup, Duration pollingInterval) {
+        this(lookup, pollingInterval, PollScheduler.shared());
+    }
+
+    public BatchPoller(BatchLookup<K, V> lookup, Duration pollingInterval,
+            PollScheduler scheduler) {
+        this.lookup = Objects.requireNonNull(lookup, "lookup");
+        this.intervalNanos = TimeKeeper.toNanos(
+                Objects.requireNonNull(pollingInterval, "pollingInterval"));
+        this.scheduler = Objects.requireNonNull(scheduler, "scheduler");
+    }
+
+    /**
+     * An event which occurs once the value looked up for the key satisfies the predicate,
+     * returning that value.
+     */
+    public Event<V> expect(K key, CheckedPredicate<? super V> predicate) {
+        return new KeyedEvent(key, predicate);
+    }
+
+    private void start(Waiter waiter) {
+        waiters.add(waiter);
+        waiter.future.whenComplete((value, throwable) -> waiters.remove(waiter));
+
+        if (ticking.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::tick);
+            } catch (RejectedExecutionException e) {
+                ticking.set(false);
+                waiter.future.completeExceptionally(new SynqException(e));
+            }
+        }
+    }
+
+    private void tick() {
+        List<Waiter> due = new ArrayList<>(waiters);
+
+        if (due.isEmpty()) {
+            ticking.set(false);
+
+            // A waiter may have started after we looked, but before we stopped.
+            if (waiters.isEmpty() || !ticking.compareAndSet(false, true)) {
+                return;
+            }
+
+            due.addAll(waiters);
+        }
+
+        Set<K> keys = new HashSet<>();
+
+        for (Waiter waiter : due) {
+            keys.add(waiter.key);
+        }
+
+        Map<K, V> values = null;
+
+        try {
+            values = lookup.lookUp(Collections.unmodifiableSet(keys));
+        } catch (Exception e) {
+            for (Waiter waiter : due) {
+                waiter.future.completeExceptionally(new ConditionEvaluationException(e));
+            }
+        }
+
+        if (values != null) {
+            for (Waiter waiter : due) {
+                waiter.offer(values.get(waiter.key));
+            }
+        }
+
+        try {
+            scheduler.schedule(this::tick, intervalNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            ticking.set(false);
+
+            for (Waiter waiter : waiters) {
+                waiter.future.completeExceptionally(new SynqException(e));
+            }
+        }
+    }
+
+    /**
+     * One wait on a {@link KeyedEvent}.
+     */
+    private class Waiter {
+        final K key;
+        final CheckedPredicate<? super V> predicate;
+        final CompletableFuture<V> future = new CompletableFuture<>();
+
+        Waiter(K key, CheckedPredicate<? super V> predicate) {
+            this.key = key;
+            this.predicate = predicate;
+        }
+
+        void offer(V value) {
+            try {
+                if (predicate.test(value)) {
+                    future.complete(value);
+                }
+            } catch (Exception e) {
+                future.completeExceptionally(new ConditionEvaluationException(e));
+            }
+        }
+    }
+
+    private class KeyedEvent extends AbstractEvent<V> {
+        private final K key;
+        private final CheckedPredicate<? super V> predicate;
+
+        KeyedEvent(K key, CheckedPredicate<? super V> predicate) {
+            this.key = key;
+            this.predicate = predicate;
+
+            describedAs(() -> "the value of " + key + " to satisfy " + predicate
+                    + " (as determined by polling every " + Duration.ofNanos(intervalNanos)
+                    + " in batches)");
+        }
+
+        @Override
+        public V waitUpTo(Duration duration) {
+            Waiter waiter = new Waiter(key, predicate);
+
+            start(waiter);
+
+            try {
+                return waiter.future.get(TimeKeeper.toNanos(duration), TimeUnit.NANOSECONDS);
+            } catch (java.util.concurrent.TimeoutException e) {
+                throw new TimeoutException(this, duration);
+            } catch (InterruptedException e) {
+                throw new SleepInterruptedException(e);
+            } catch (ExecutionException e) {
+                throw ThrowableUtil.throwUnchecked(e.getCause());
+            } finally {
+                waiter.future.cancel(false);
+            }
+        }
+
+        @Override
+        public CompletableFuture<V> waitAsync(Duration duration) {
+            Waiter waiter = new Waiter(key, predicate);
+
+            start(waiter);
+            Futures.failAfter(waiter.future, duration, () -> new TimeoutException(this, duration));
+
+            return waiter.future;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the branches of {@link MultiEvent MultiEvents}. Branches block for as long as the events
+ * they wait for, so unlike the {@link PollScheduler} this pool grows to however many branches are
+ * awaited at once. Its threads are reused across waits and exit after being idle for a minute.
+ *
+ * <p>Work is never queued: a queued branch would wait behind branches which may block for their
+ * whole timeout, and so time out without ever running. Instead, platform threads are capped at
+ * {@value #MAX_PLATFORM_THREADS}, beyond which work is rejected with a
+ * {@link java.util.concurrent.RejectedExecutionException}. That fails the waits concerned with a
+ * {@link SynqException}, rather than leaving the JVM to run out of native threads. Virtual
+ * threads are cheap enough not to need a cap.
+ */
+final class BranchExecutor {
+    private static final int MAX_PLATFORM_THREADS = 2048;
+
+    private static final AtomicInteger THREADS_CREATED = new AtomicInteger();
+    private static final ThreadFactory THREAD_FACTORY = Threads.daemonThreadFactory("synq-branch");
+
+    private static final ExecutorService EXECUTOR = new ThreadPoolExecutor(0,
+            Threads.virtual() ? Integer.MAX_VALUE : MAX_PLATFORM_THREADS,
+            60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                THREADS_CREATED.incrementAndGet();
+                return THREAD_FACTORY.newThread(runnable);
+            });
+
+    private BranchExecutor() {
+    }
+
+    static ExecutorService shared() {
+        return EXECUTOR;
+    }
+
+    /**
+     * The number of threads this executor has created since the class was loaded.
+     */
+    static int threadsCreated() {
+        return THREADS_CREATED.get();
+    }
+}
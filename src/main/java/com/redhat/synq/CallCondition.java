@@ -0,0 +1,69 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A condition which is met when the result of calling some callable satisfies a predicate.
+ *
+ * @see Condition#matchCallTo(Callable, CheckedPredicate)
+ */
+class CallCondition<T> extends AbstractCondition<T> {
+    private final CheckedPredicate<? super T> predicate;
+
+    private final Callable<T> item;
+    private T lastResult = null;
+
+    CallCondition(Callable<T> item, CheckedPredicate<? super T> predicate) {
+        this.item = item;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public boolean isMet() {
+        return isMet(item);
+    }
+
+    /**
+     * Evaluates this condition with the result of the given callable in place of its own.
+     *
+     * @see CoalescedCall
+     */
+    boolean isMet(Callable<T> callable) {
+        try {
+            lastResult = callable.call();
+            return predicate.test(lastResult);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ConditionEvaluationException(e);
+        }
+    }
+
+    @Override
+    public T lastResult() {
+        return lastResult;
+    }
+
+    Callable<T> callable() {
+        return item;
+    }
+}
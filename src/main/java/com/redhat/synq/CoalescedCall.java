@@ -0,0 +1,249 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A callable shared by the conditions of several branches of one {@link MultiEvent} for the
+ * length of a wait, so that branches polling at about the same time examine a single snapshot
+ * rather than each making the call themselves. For example, both branches of
+ * {@code expectCallTo(getResult, r -> r == 4).failIfCallTo(getResult, r -> r != 4)} examine the
+ * same result of {@code getResult}, and it is called about half as often.
+ *
+ * <p>Each branch calls through its own participant. A participant reuses the latest value if it
+ * has not examined that value yet, and the value is no older than {@value #FRESHNESS_MILLIS}
+ * milliseconds. Otherwise, it makes a new call. Calls are made one at a time, so participants
+ * polling at the same moment wait for the same call rather than making their own.
+ *
+ * <p>Only branches calling the very same callable instance are coalesced. Two lambdas or method
+ * references written separately, like {@code calc::getResult} twice, are different objects and
+ * are called separately. Assign the callable to a variable and pass that to each branch to share
+ * it, or share calls explicitly, and across waits too, by passing each branch the same
+ * {@link Synq#shared(Callable, java.time.Duration) shared} callable.
+ *
+ * <p>Neither conditions nor events are ever changed. Each wait awaits its own copies of the
+ * sharing branches, whose conditions call through that wait's participants, and which are simply
+ * dropped once it is over. Anything else evaluating the same conditions, including other waits,
+ * calls their callables as usual.
+ */
+final class CoalescedCall<V> {
+    static final long FRESHNESS_MILLIS = 100;
+
+    private static final long FRESHNESS_NANOS = TimeUnit.MILLISECONDS.toNanos(FRESHNESS_MILLIS);
+
+    private final Callable<V> callable;
+
+    /**
+     * Held across calls to the callable, which may block for a long time. Unlike a monitor, this
+     * does not pin virtual threads to their carrier while they wait for it.
+     */
+    private final Lock lock = new ReentrantLock();
+
+    private long generation;
+    private long calledAt;
+    private V value;
+    private Exception failure;
+
+    private CoalescedCall(Callable<V> callable) {
+        this.callable = callable;
+    }
+
+    /**
+     * Returns the branches to await for one wait. Branches which poll the same callable as
+     * another are replaced by copies sharing one call between them; the rest are returned as is.
+     * Branches which are not polls of a callable, or are nested within sequential events (whose
+     * later stages must not see values from before earlier ones), are left alone.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T> List<Event<? extends T>> share(List<? extends Event<? extends T>> branches) {
+        Map<Callable<?>, Integer> pollers = new IdentityHashMap<>();
+
+        for (Event<? extends T> branch : branches) {
+            Callable<?> callable = callableOf(conditionOf(branch));
+
+            if (callable != null) {
+                pollers.merge(callable, 1, Integer::sum);
+            }
+        }
+
+        Map<Callable<?>, CoalescedCall<?>> calls = new IdentityHashMap<>();
+        List<Event<? extends T>> shared = new ArrayList<>(branches.size());
+
+        for (Event<? extends T> branch : branches) {
+            Callable<?> callable = callableOf(conditionOf(branch));
+
+            if (callable == null || pollers.get(callable) < 2) {
+                shared.add(branch);
+                continue;
+            }
+
+            CoalescedCall call = calls.computeIfAbsent(callable, CoalescedCall::new);
+
+            shared.add((Event<? extends T>) participating(branch, call));
+        }
+
+        return shared;
+    }
+
+    /**
+     * Finds the condition polled by the event, if it is one of the events whose condition can be
+     * shared. Only these exact classes are recognised, since {@link #participating} must be able
+     * to copy them.
+     */
+    private static Condition<?> conditionOf(Event<?> event) {
+        Class<?> type = event.getClass();
+
+        if (type == ThreadedPollEvent.class) {
+            return ((ThreadedPollEvent<?>) event).condition();
+        }
+
+        if (type == DefaultPollEvent.class) {
+            return ((DefaultPollEvent<?>) event).condition();
+        }
+
+        if (type == ForwardingFailEvent.class || type == ForwardingFailPollEvent.class) {
+            return conditionOf(((ForwardingFailEvent<?>) event).original);
+        }
+
+        if (type == ForwardingEvent.class) {
+            return conditionOf(((ForwardingEvent<?>) event).event);
+        }
+
+        if (type == ForwardingPollEvent.class) {
+            return conditionOf(((ForwardingPollEvent<?>) event).event);
+        }
+
+        return null;
+    }
+
+    private static Callable<?> callableOf(Condition<?> condition) {
+        if (condition == null) {
+            return null;
+        }
+
+        if (condition.getClass() == CallCondition.class) {
+            return ((CallCondition<?>) condition).callable();
+        }
+
+        if (condition.getClass() == HamcrestCondition.class) {
+            return ((HamcrestCondition<?>) condition).getSupplier();
+        }
+
+        return null;
+    }
+
+    /**
+     * Copies an event for which {@link #conditionOf} found a condition, so that the copy's
+     * condition calls through a new participant in the call.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Event<?> participating(Event<?> event, CoalescedCall call) {
+        Class<?> type = event.getClass();
+
+        if (type == ThreadedPollEvent.class) {
+            ThreadedPollEvent pollEvent = (ThreadedPollEvent) event;
+
+            return pollEvent.evaluating(call.new Participant(pollEvent.condition()));
+        }
+
+        if (type == DefaultPollEvent.class) {
+            DefaultPollEvent pollEvent = (DefaultPollEvent) event;
+
+            return pollEvent.evaluating(call.new Participant(pollEvent.condition()));
+        }
+
+        if (type == ForwardingFailEvent.class || type == ForwardingFailPollEvent.class) {
+            ForwardingFailEvent failEvent = (ForwardingFailEvent) event;
+
+            return failEvent.forwarding(participating(failEvent.original, call));
+        }
+
+        if (type == ForwardingEvent.class) {
+            return new ForwardingEvent(participating(((ForwardingEvent) event).event, call));
+        }
+
+        return new ForwardingPollEvent(
+                (PollEvent) participating(((ForwardingPollEvent) event).event, call));
+    }
+
+    private V call(Participant participant) throws Exception {
+        lock.lock();
+
+        try {
+            if (participant.seen == generation
+                    || System.nanoTime() - calledAt > FRESHNESS_NANOS) {
+                try {
+                    value = callable.call();
+                    failure = null;
+                } catch (Exception e) {
+                    value = null;
+                    failure = e;
+                }
+
+                calledAt = System.nanoTime();
+                generation++;
+            }
+
+            participant.seen = generation;
+
+            if (failure != null) {
+                throw failure;
+            }
+
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The view of one branch's condition onto the shared call. Evaluates that very condition,
+     * updating its last result as usual, except that it calls through the shared call.
+     */
+    final class Participant extends ForwardingCondition<V> {
+        private final Condition<V> condition;
+
+        private long seen;
+
+        Participant(Condition<V> condition) {
+            super(condition);
+            this.condition = condition;
+        }
+
+        @Override
+        public boolean isMet() {
+            Callable<V> shared = () -> call(this);
+
+            if (condition instanceof CallCondition) {
+                return ((CallCondition<V>) condition).isMet(shared);
+            }
+
+            return ((HamcrestCondition<V>) condition).isMet(shared);
+        }
+    }
+}
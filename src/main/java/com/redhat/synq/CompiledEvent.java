@@ -0,0 +1,607 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Awaits a composition of events as a single state machine, driven entirely by the waiting thread.
+ *
+ * <p>Normally, each branch of a {@link MultiEvent} waits on its own thread, each polled condition
+ * sleeps and polls on its own schedule, and the branches race to a shared latch. A compiled event
+ * instead walks the composition once per tick: every condition that is due is evaluated in order,
+ * on the waiting thread, the first branch to occur (or fail) is decided, and then the thread sleeps
+ * until the earliest time any condition is next due.
+ *
+ * <p>The conditions of {@link ThreadedPollEvent ThreadedPollEvents} are still evaluated through
+ * their serial executors, as they would be otherwise, so they are never evaluated concurrently
+ * with anything else run by those executors. The waiting thread waits for such evaluations.
+ *
+ * <p>Polled conditions (from {@link DefaultPollEvent} and {@link ThreadedPollEvent}),
+ * {@link MultiEvent MultiEvents}, {@link SequentialEvent SequentialEvents}, fail events, forwarding
+ * events, and actions are compiled. Any other event is started via
+ * {@link Event#waitAsync(Duration)}, and wakes the waiting thread once it completes.
+ *
+ * @see Event#compile()
+ */
+public class CompiledEvent<T> implements Event<T> {
+    /**
+     * Returned from {@link Node#nextDue()} by nodes with nothing scheduled.
+     */
+    private static final long NEVER = Long.MAX_VALUE;
+
+    private final Event<T> event;
+    private final TimeKeeper timeKeeper;
+
+    public CompiledEvent(Event<T> event) {
+        this(event, TimeKeeper.systemTimeKeeper());
+    }
+
+    public CompiledEvent(Event<T> event, TimeKeeper timeKeeper) {
+        this.event = Objects.requireNonNull(event, "event");
+        this.timeKeeper = Objects.requireNonNull(timeKeeper, "timeKeeper");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T waitUpTo(Duration duration) {
+        // All times within the state machine are nanoseconds elapsed since the wait started.
+        long start = timeKeeper.nanoTime();
+        long deadline = TimeKeeper.toNanos(duration);
+        long now = 0;
+        Node root = compile(event, deadline);
+
+        try {
+            root.start(now);
+
+            while (true) {
+                now = timeKeeper.nanoTime() - start;
+
+                // Step even once the deadline has passed, so that conditions get one last poll.
+                root.step(now);
+
+                if (root.state == State.OCCURRED) {
+                    return (T) root.result;
+                }
+
+                if (root.state == State.FAILED) {
+                    if (root.failure instanceof TimeoutException) {
+                        throw new TimeoutException(this, duration);
+                    }
+
+                    throw ThrowableUtil.throwUnchecked(root.failure);
+                }
+
+                if (now >= deadline) {
+                    if (root.resolvesOnTimeout()) {
+                        return null;
+                    }
+
+                    throw new TimeoutException(this, duration);
+                }
+
+                long due = Math.min(root.nextDue(), deadline);
+
+                // Nodes bring themselves forward when nudged; wake up if one does.
+                timeKeeper.parkNanos(due - now, () -> root.nextDue() < due);
+            }
+        } finally {
+            root.cancel();
+        }
+    }
+
+    @Override
+    public Event<T> describedAs(Supplier<String> description) {
+        event.describedAs(description);
+
+        return this;
+    }
+
+    @Override
+    public void giveBack(T result) {
+        event.giveBack(result);
+    }
+
+    @Override
+    public String toString() {
+        return event.toString();
+    }
+
+    /**
+     * Builds a fresh state machine for one wait on the event.
+     */
+    private Node compile(Event<?> event, long deadline) {
+        if (event instanceof CompiledEvent) {
+            return compile(((CompiledEvent<?>) event).event, deadline);
+        }
+
+        if (event instanceof DefaultPollEvent) {
+            DefaultPollEvent<?> pollEvent = (DefaultPollEvent<?>) event;
+
+            return new PollNode(pollEvent::poll, pollEvent.condition()::lastResult,
+                    pollEvent.pollingPolicy().forCondition(pollEvent.condition().description()),
+                    pollEvent.rateLimiter(), pollEvent.nudges(), deadline);
+        }
+
+        if (event instanceof ThreadedPollEvent) {
+            ThreadedPollEvent<?> pollEvent = (ThreadedPollEvent<?>) event;
+
+            return new PollNode(pollEvent::pollSerially, pollEvent.condition()::lastResult,
+                    pollEvent.pollingPolicy().forCondition(pollEvent.condition().description()),
+                    pollEvent.rateLimiter(), pollEvent.nudges(), deadline);
+        }
+
+        if (event instanceof MultiEvent) {
+            MultiEvent<?> multiEvent = (MultiEvent<?>) event;
+            List<Node> branches = new ArrayList<>();
+
+            // Each wait compiles afresh, so branches sharing calls share them for this wait only.
+            for (Event<?> branch : CoalescedCall.share(multiEvent.events())) {
+                branches.add(compile(branch, deadline));
+            }
+
+            return new AnyNode(multiEvent.events(), branches, multiEvent.onlyFailEvents());
+        }
+
+        if (event instanceof SequentialEvent) {
+            List<Node> stages = new ArrayList<>();
+
+            for (Event<?> stage : ((SequentialEvent<?>) event).stages()) {
+                stages.add(compile(stage, deadline));
+            }
+
+            return new SequenceNode(stages);
+        }
+
+        if (event instanceof ForwardingFailEvent) {
+            ForwardingFailEvent<?> failEvent = (ForwardingFailEvent<?>) event;
+
+            return new FailNode(failEvent, compile(failEvent.original, deadline));
+        }
+
+        if (event instanceof ForwardingEvent) {
+            return compile(((ForwardingEvent<?>) event).event, deadline);
+        }
+
+        if (event instanceof ForwardingPollEvent) {
+            return compile(((ForwardingPollEvent<?>) event).event, deadline);
+        }
+
+        if (event instanceof ActionEvent) {
+            return new ActionNode((ActionEvent) event);
+        }
+
+        return new AsyncNode(event, deadline);
+    }
+
+    private enum State {
+        PENDING, OCCURRED, FAILED
+    }
+
+    /**
+     * The state of one event within the composition.
+     */
+    private abstract class Node {
+        State state = State.PENDING;
+        Object result;
+        Throwable failure;
+
+        /**
+         * Called once, when the node begins to be awaited.
+         */
+        abstract void start(long now);
+
+        /**
+         * Does whatever work is due as of now, possibly settling the node.
+         */
+        abstract void step(long now);
+
+        /**
+         * The earliest time at which this node has work to do, or {@link #NEVER} if it has none.
+         */
+        abstract long nextDue();
+
+        /**
+         * Whether this node returns normally (with null) if time runs out while it is pending, as
+         * fail events do.
+         */
+        boolean resolvesOnTimeout() {
+            return false;
+        }
+
+        /**
+         * Stops any work done on behalf of this node outside of the waiting thread.
+         */
+        void cancel() {
+        }
+
+        void occur(Object result) {
+            this.state = State.OCCURRED;
+            this.result = result;
+        }
+
+        void fail(Throwable failure) {
+            this.state = State.FAILED;
+            this.failure = failure;
+        }
+    }
+
+    private class PollNode extends Node {
+        private final BooleanSupplier poll;
+        private final Supplier<?> lastResult;
+        private final PollingPolicy pollingPolicy;
+        private final RateLimiter rateLimiter;
+        private final Nudges nudges;
+        private final long deadline;
+
+        private long seen;
+        private long started;
+        private long nextPoll;
+        private long delay;
+        private int evaluations;
+        private boolean heldBack;
+
+        PollNode(BooleanSupplier poll, Supplier<?> lastResult, PollingPolicy pollingPolicy,
+                RateLimiter rateLimiter, Nudges nudges, long deadline) {
+            this.poll = poll;
+            this.lastResult = lastResult;
+            this.pollingPolicy = pollingPolicy;
+            this.rateLimiter = rateLimiter;
+            this.nudges = nudges;
+            this.deadline = deadline;
+        }
+
+        @Override
+        void start(long now) {
+            started = now;
+            nextPoll = now;
+            seen = nudges.generation();
+            nudges.addSleeper(Thread.currentThread());
+        }
+
+        @Override
+        void step(long now) {
+            if (now < nextPoll && now < deadline && !nudged()) {
+                return;
+            }
+
+            seen = nudges.generation();
+
+            long throttled = rateLimiter == null ? 0 : rateLimiter.tryAcquire(heldBack);
+            heldBack = throttled > 0;
+
+            if (heldBack) {
+                nextPoll = now + throttled;
+                return;
+            }
+
+            try {
+                if (poll.getAsBoolean()) {
+                    pollingPolicy.conditionMet(evaluations + 1, now - started);
+                    occur(lastResult.get());
+                    return;
+                }
+            } catch (Throwable t) {
+                // Conditions may rethrow checked exceptions unchecked, so catch everything.
+                fail(t);
+                return;
+            } finally {
+                if (rateLimiter != null) {
+                    rateLimiter.release();
+                }
+            }
+
+            delay = Math.max(0, pollingPolicy.nextDelayNanos(++evaluations, now - started, delay));
+            nextPoll = now + delay;
+        }
+
+        @Override
+        long nextDue() {
+            return nudged() ? Math.min(nextPoll, 0) : nextPoll;
+        }
+
+        @Override
+        void cancel() {
+            nudges.removeSleeper(Thread.currentThread());
+        }
+
+        @Override
+        void occur(Object result) {
+            super.occur(result);
+            cancel();
+        }
+
+        @Override
+        void fail(Throwable failure) {
+            super.fail(failure);
+            cancel();
+        }
+
+        private boolean nudged() {
+            return nudges.generation() != seen;
+        }
+    }
+
+    private class AnyNode extends Node {
+        private final List<? extends Event<?>> events;
+        private final List<Node> branches;
+        private final boolean onlyFailEvents;
+
+        AnyNode(List<? extends Event<?>> events, List<Node> branches, boolean onlyFailEvents) {
+            this.events = events;
+            this.branches = branches;
+            this.onlyFailEvents = onlyFailEvents;
+        }
+
+        @Override
+        void start(long now) {
+            for (Node branch : branches) {
+                branch.start(now);
+            }
+        }
+
+        @Override
+        void step(long now) {
+            for (int i = 0; i < branches.size(); i++) {
+                Node branch = branches.get(i);
+
+                if (branch.state == State.PENDING) {
+                    branch.step(now);
+                }
+
+                if (branch.state == State.OCCURRED
+                        && (onlyFailEvents || !(events.get(i) instanceof FailEvent))) {
+                    occur(branch.result);
+                    return;
+                }
+
+                if (branch.state == State.FAILED) {
+                    fail(branch.failure instanceof TimeoutException
+                            ? branch.failure
+                            : MultiEvent.multiEventException(events.get(i), branch.failure));
+                    return;
+                }
+            }
+        }
+
+        @Override
+        long nextDue() {
+            long earliest = NEVER;
+
+            for (Node branch : branches) {
+                if (branch.state == State.PENDING) {
+                    earliest = Math.min(earliest, branch.nextDue());
+                }
+            }
+
+            return earliest;
+        }
+
+        @Override
+        boolean resolvesOnTimeout() {
+            for (Node branch : branches) {
+                if (branch.state == State.PENDING && !branch.resolvesOnTimeout()) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        void cancel() {
+            for (Node branch : branches) {
+                branch.cancel();
+            }
+        }
+    }
+
+    private class SequenceNode extends Node {
+        private final List<Node> stages;
+        private int current;
+
+        SequenceNode(List<Node> stages) {
+            this.stages = stages;
+        }
+
+        @Override
+        void start(long now) {
+            stages.get(0).start(now);
+        }
+
+        @Override
+        void step(long now) {
+            while (true) {
+                Node stage = stages.get(current);
+
+                stage.step(now);
+
+                if (stage.state == State.FAILED) {
+                    fail(stage.failure);
+                    return;
+                }
+
+                if (stage.state == State.PENDING) {
+                    return;
+                }
+
+                if (current == stages.size() - 1) {
+                    occur(stage.result);
+                    return;
+                }
+
+                current++;
+                stages.get(current).start(now);
+            }
+        }
+
+        @Override
+        long nextDue() {
+            return stages.get(current).nextDue();
+        }
+
+        @Override
+        boolean resolvesOnTimeout() {
+            return current == stages.size() - 1 && stages.get(current).resolvesOnTimeout();
+        }
+
+        @Override
+        void cancel() {
+            stages.get(current).cancel();
+        }
+    }
+
+    private class FailNode extends Node {
+        private final ForwardingFailEvent<?> failEvent;
+        private final Node original;
+
+        FailNode(ForwardingFailEvent<?> failEvent, Node original) {
+            this.failEvent = failEvent;
+            this.original = original;
+        }
+
+        @Override
+        void start(long now) {
+            original.start(now);
+        }
+
+        @Override
+        void step(long now) {
+            original.step(now);
+
+            if (original.state == State.OCCURRED) {
+                fail(failEvent.failure(original.result));
+            } else if (original.state == State.FAILED) {
+                if (original.failure instanceof TimeoutException) {
+                    occur(null);
+                } else {
+                    fail(original.failure);
+                }
+            }
+        }
+
+        @Override
+        long nextDue() {
+            return original.nextDue();
+        }
+
+        @Override
+        boolean resolvesOnTimeout() {
+            return true;
+        }
+
+        @Override
+        void cancel() {
+            original.cancel();
+        }
+    }
+
+    private class ActionNode extends Node {
+        private final ActionEvent action;
+
+        ActionNode(ActionEvent action) {
+            this.action = action;
+        }
+
+        @Override
+        void start(long now) {
+        }
+
+        @Override
+        void step(long now) {
+            action.waitUpTo(Duration.ZERO);
+            occur(null);
+        }
+
+        @Override
+        long nextDue() {
+            return NEVER;
+        }
+    }
+
+    /**
+     * An event that cannot be compiled, so is awaited asynchronously. It is due as soon as it
+     * completes, and completing wakes the waiting thread to step it.
+     */
+    private class AsyncNode extends Node {
+        private final Event<?> event;
+        private final long deadline;
+
+        private CompletableFuture<?> future;
+        private volatile Thread waiter;
+
+        AsyncNode(Event<?> event, long deadline) {
+            this.event = event;
+            this.deadline = deadline;
+        }
+
+        @Override
+        void start(long now) {
+            waiter = Thread.currentThread();
+            future = event.waitAsync(Duration.ofNanos(deadline - now));
+            future.whenComplete((result, throwable) -> {
+                Thread waiting = waiter;
+
+                if (waiting != null) {
+                    LockSupport.unpark(waiting);
+                }
+            });
+        }
+
+        @Override
+        void step(long now) {
+            if (!future.isDone()) {
+                return;
+            }
+
+            try {
+                occur(future.join());
+            } catch (RuntimeException e) {
+                fail(Futures.unwrap(e));
+            }
+        }
+
+        @Override
+        long nextDue() {
+            return future != null && future.isDone() ? 0 : NEVER;
+        }
+
+        @Override
+        void cancel() {
+            waiter = null;
+
+            if (future == null || future.cancel(true)) {
+                return;
+            }
+
+            // Completed since it was last checked, so its result will never be used.
+            if (state == State.PENDING && !future.isCompletedExceptionally()) {
+                Futures.giveBack(event, future.join());
+            }
+        }
+    }
+}
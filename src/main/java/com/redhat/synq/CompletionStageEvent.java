@@ -0,0 +1,68 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * An event which occurs when a {@link CompletionStage} completes, with the stage's result. If the
+ * stage completes exceptionally, waits fail with its exception. Completion is pushed to waiters by
+ * the stage's own callback, so nothing is polled and no thread is held for asynchronous waits.
+ *
+ * @see Synq#expectCompletionOf(CompletionStage)
+ */
+@Experimental
+public class CompletionStageEvent<T> extends AbstractEvent<T> {
+    private final CompletableFuture<T> completed = new CompletableFuture<>();
+    private final Followers<T> followers = new Followers<>(completed);
+
+    public CompletionStageEvent(CompletionStage<? extends T> stage) {
+        Objects.requireNonNull(stage, "stage").whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                completed.completeExceptionally(Futures.unwrap(throwable));
+            } else {
+                completed.complete(result);
+            }
+        });
+
+        describedAs(() -> "completion of " + stage);
+    }
+
+    @Override
+    public T waitUpTo(Duration duration) {
+        return Futures.await(completed, duration, this);
+    }
+
+    /**
+     * Completes along with the stage, without holding a thread in the meantime. Cancelling the
+     * returned future does not cancel the stage, nor affect other waits on this event.
+     */
+    @Override
+    public CompletableFuture<T> waitAsync(Duration duration) {
+        CompletableFuture<T> future = followers.follow();
+
+        Futures.failAfter(future, duration, () -> new TimeoutException(this, duration));
+
+        return future;
+    }
+}
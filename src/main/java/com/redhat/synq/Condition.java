@@ -53,6 +53,17 @@ public interface Condition<T> {
 
     @Experimental
     Condition<T> describedAs(Supplier<String> description);
+
+    /**
+     * Describes what this condition checks, without any details of a particular evaluation (such
+     * as the last result), so that the same condition can be recognised from one wait to the next.
+     * Used by {@link PollingPolicy#adaptive(java.time.Duration, java.time.Duration) adaptive}
+     * polling. Defaults to {@code toString()}.
+     */
+    @Experimental
+    default String description() {
+        return toString();
+    }
     
     /**
      * Converts this condition to an {@link Event} by polling at some default interval until the
@@ -83,27 +94,8 @@ public interface Condition<T> {
     }
     
     static <T> Condition<T> matchCallTo(Callable<T> item, CheckedPredicate<? super T> predicate) {
-        return new AbstractCondition<T>() {
-            private T lastResult = null;
-            
-            @Override
-            public boolean isMet() {
-                try {
-                    lastResult = item.call();
-                    return predicate.test(lastResult);
-                } catch (RuntimeException e) {
-                    throw e;
-                } catch (Exception e) {
-                    throw new ConditionEvaluationException(e);
-                }
-            }
-            
-            @Override
-            public T lastResult() {
-                return lastResult;
-            }
-
-        }.describedAs(() -> item + " to satisfy " + predicate);
+        return new CallCondition<>(item, predicate)
+                .describedAs(() -> item + " to satisfy " + predicate);
     }
     
     static <T> Condition<T> match(T item, CheckedPredicate<? super T> predicate) {
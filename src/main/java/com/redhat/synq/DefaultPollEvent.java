@@ -20,9 +20,10 @@
 package com.redhat.synq;
 
 import java.time.Duration;
-import java.time.Instant;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 public class DefaultPollEvent<T> implements PollEvent<T> {
@@ -31,7 +32,9 @@ public class DefaultPollEvent<T> implements PollEvent<T> {
     private final Condition<T> condition;
     private final TimeKeeper timeKeeper;
 
-    private Duration pollingInterval = DEFAULT_POLLING_INTERVAL;
+    private PollingPolicy pollingPolicy = PollingPolicy.fixed(DEFAULT_POLLING_INTERVAL);
+    private RateLimiter rateLimiter;
+    private final Nudges nudges;
     private Set<Class<? extends Exception>> ignoredExceptions = new HashSet<>();
     
     public DefaultPollEvent(Condition<T> condition) {
@@ -41,14 +44,41 @@ public class DefaultPollEvent<T> implements PollEvent<T> {
     public DefaultPollEvent(Condition<T> condition, TimeKeeper timeKeeper) {
         this.condition = condition;
         this.timeKeeper = timeKeeper;
+        this.nudges = new Nudges();
+    }
+
+    private DefaultPollEvent(Condition<T> condition, DefaultPollEvent<T> settings) {
+        this.condition = condition;
+        this.timeKeeper = settings.timeKeeper;
+        this.pollingPolicy = settings.pollingPolicy;
+        this.rateLimiter = settings.rateLimiter;
+        this.nudges = settings.nudges;
+        this.ignoredExceptions = settings.ignoredExceptions;
     }
     
     public DefaultPollEvent<T> pollingEvery(Duration pollingInterval) {
-        this.pollingInterval = pollingInterval;
-        
+        return polling(PollingPolicy.fixed(pollingInterval));
+    }
+
+    @Override
+    public DefaultPollEvent<T> polling(PollingPolicy pollingPolicy) {
+        this.pollingPolicy = Objects.requireNonNull(pollingPolicy, "pollingPolicy");
+
         return this;
     }
     
+    @Override
+    public DefaultPollEvent<T> limitedBy(RateLimiter rateLimiter) {
+        this.rateLimiter = Objects.requireNonNull(rateLimiter, "rateLimiter");
+
+        return this;
+    }
+
+    @Override
+    public void nudge() {
+        nudges.nudge();
+    }
+
     public DefaultPollEvent<T> ignoring(Class<? extends Exception> exception) {
         ignoredExceptions.add(exception);
         return this;
@@ -72,40 +102,116 @@ public class DefaultPollEvent<T> implements PollEvent<T> {
     public T waitUpTo(Duration duration) {
         boolean met = false;
         T lastResult = null;
-        Instant timeoutTime = timeKeeper.instant().plus(duration);
-        Instant now;
+        long timeoutNanos = TimeKeeper.toNanos(duration);
+        long start = timeKeeper.nanoTime();
+        long delay = 0;
+        int evaluations = 0;
+        PollingPolicy policy = pollingPolicy.forCondition(condition.description());
         
         while (!met) {
-            now = timeKeeper.instant();
-
-            if (now.isAfter(timeoutTime)
-                    || now.equals(timeoutTime)) {
-                throw new TimeoutException(this, duration);
-            }
+            long seen = nudges.generation();
+
+            if (acquire(start, timeoutNanos)) {
+                try {
+                    met = condition.isMet();
+                    lastResult = condition.lastResult();
+                } catch (Exception e) {
+                    throwIfNotIgnored(e);
+                } finally {
+                    release();
+                }
 
-            try {
-                met = condition.isMet();
-                lastResult = condition.lastResult();
-                
                 if (met) {
                     break;
                 }
-            } catch (Exception e) {
-                throwIfNotIgnored(e);
             }
 
-            timeKeeper.sleepFor(pollingInterval);
+            long elapsed = timeKeeper.nanoTime() - start;
+
+            if (elapsed >= timeoutNanos) {
+                throw new TimeoutException(this, duration);
+            }
+
+            delay = Math.max(0, policy.nextDelayNanos(++evaluations, elapsed, delay));
+
+            // Never sleep past the deadline, so that the last evaluation happens right at it.
+            nudges.sleep(timeKeeper, Math.min(delay, timeoutNanos - elapsed), seen);
         }
-        
+
+        policy.conditionMet(evaluations + 1, timeKeeper.nanoTime() - start);
+
         return lastResult;
     }
 
+    /**
+     * Evaluates the condition on the shared {@link PollScheduler}'s workers, rather than sleeping
+     * the calling thread between evaluations.
+     */
+    @Override
+    public CompletableFuture<T> waitAsync(Duration duration) {
+        return new AsyncPoll<>(this, this::poll, condition::lastResult,
+                pollingPolicy.forCondition(condition.description()),
+                rateLimiter, nudges, timeKeeper, Runnable::run, PollScheduler.shared()).start(duration);
+    }
+
+    /**
+     * A copy of this event, polled as configured so far, but evaluating another condition.
+     * Nudging either event nudges waits on both.
+     */
+    DefaultPollEvent<T> evaluating(Condition<T> condition) {
+        return new DefaultPollEvent<>(condition, this);
+    }
+
+    Condition<T> condition() {
+        return condition;
+    }
+
+    PollingPolicy pollingPolicy() {
+        return pollingPolicy;
+    }
+
+    RateLimiter rateLimiter() {
+        return rateLimiter;
+    }
+
+    Nudges nudges() {
+        return nudges;
+    }
+
     @Override
     public String toString() {
         return condition.toString() +
-                " (as determined by polling every " + pollingInterval.toString() +")";
+                " (as determined by polling " + pollingPolicy +")";
     }
     
+    /**
+     * Evaluates the condition once.
+     *
+     * @return True if the condition was met. False if not, or if it threw an ignored exception.
+     */
+    boolean poll() {
+        try {
+            return condition.isMet();
+        } catch (Exception e) {
+            throwIfNotIgnored(e);
+            return false;
+        }
+    }
+
+    /**
+     * Waits for the rate limiter, if any, for no longer than is left until the deadline.
+     */
+    private boolean acquire(long start, long timeoutNanos) {
+        return rateLimiter == null
+                || rateLimiter.acquire(timeoutNanos - (timeKeeper.nanoTime() - start));
+    }
+
+    private void release() {
+        if (rateLimiter != null) {
+            rateLimiter.release();
+        }
+    }
+
     private void throwIfNotIgnored(Throwable t) throws RuntimeException {
         for (Class<? extends Exception> ignoredException : ignoredExceptions) {
             // The getCause check may not be necessary
@@ -24,6 +24,7 @@ import org.hamcrest.Matcher;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 /**
@@ -67,6 +68,33 @@ public interface Event<T> {
      */
     T waitUpTo(Duration duration);
 
+    /**
+     * Start waiting for the event without blocking the calling thread. The returned future
+     * completes with the same result {@link #waitUpTo(Duration)} would return, or exceptionally
+     * with the exception it would throw (including a {@link com.redhat.synq.TimeoutException} if
+     * the duration passes before the Event occurs).
+     *
+     * <p>Cancelling the future stops the wait, including any polling or other work done on its
+     * behalf.
+     *
+     * <p>The default implementation simply blocks a pooled thread in {@link #waitUpTo(Duration)};
+     * Synq's own events override this to wait without holding a thread.
+     */
+    default CompletableFuture<T> waitAsync(Duration duration) {
+        return Futures.waitOnPooledThread(this, duration);
+    }
+
+    /**
+     * Called with a result of this event which was produced but never used, as when a wait on
+     * this event loses a race with another (see {@link #or(Event)}). Events whose waits consume
+     * what they return, as a {@link QueueEvent} takes elements off a queue, put the result back.
+     * Events which only observe something have nothing to give back, so by default this does
+     * nothing. Events wrapping another pass the result on to it.
+     */
+    @Experimental
+    default void giveBack(T result) {
+    }
+
     /**
      * Most Event objects are constructed in a such a way that it is difficult to programmatically
      * determine an appropriate description to return for {@link #toString()}. The description in
@@ -131,6 +159,17 @@ public interface Event<T> {
         return waitUpTo(Duration.of(timeout, unit));
     }
 
+    /**
+     * Returns an equivalent event which, when awaited, evaluates this whole composition as a single
+     * state machine on the waiting thread, rather than fanning branches out to other threads.
+     *
+     * @see CompiledEvent
+     */
+    @Experimental
+    default Event<T> compile() {
+        return new CompiledEvent<>(this);
+    }
+
     /**
      * Perform some action before waiting. Will always run before waiting begins, unless after an
      * {@link #andThenExpect(Event)}, in which case the action will run, and the first set of events
@@ -19,40 +19,74 @@
 
 package com.redhat.synq;
 
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
-
 import java.time.Duration;
-import java.util.concurrent.CountDownLatch;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class EventListener<T> extends AbstractEvent<T> {
-    private CountDownLatch latch = new CountDownLatch(1);
+    private final Signal signal = new Signal();
+    private WaitStrategy waitStrategy = WaitStrategy.parking();
     private T result;
     private Exception exception;
+
+    /**
+     * Guards triggering. A lock rather than a monitor, so that triggering from a virtual thread
+     * does not pin its carrier.
+     */
+    private final Lock lock = new ReentrantLock();
+
+    /**
+     * Completed by the first trigger, for the benefit of {@link #waitAsync(Duration)}.
+     */
+    private final CompletableFuture<T> triggered = new CompletableFuture<>();
+
+    private final Followers<T> followers = new Followers<>(triggered);
     
-    public synchronized void trigger(T result) {
-        if (exception == null) {
-            this.result = result;
-            latch.countDown();
+    public void trigger(T result) {
+        lock.lock();
+
+        try {
+            if (exception == null) {
+                this.result = result;
+                signal.set();
+                triggered.complete(result);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
-    public synchronized void triggerError(Exception exception) {
-        if (result == null) {
-            this.exception = exception;
-            latch.countDown();
+    public void triggerError(Exception exception) {
+        lock.lock();
+
+        try {
+            if (result == null) {
+                this.exception = exception;
+                signal.set();
+                triggered.completeExceptionally(exception);
+            }
+        } finally {
+            lock.unlock();
         }
     }
     
+    /**
+     * Sets how threads waiting on this listener pass the time until it is triggered. Parks by
+     * default; a spinning strategy notices a trigger sooner, at the cost of a core per waiter.
+     */
+    @Experimental
+    public EventListener<T> waitingWith(WaitStrategy waitStrategy) {
+        this.waitStrategy = Objects.requireNonNull(waitStrategy, "waitStrategy");
+
+        return this;
+    }
+
     @Override
     public T waitUpTo(Duration duration) {
-        boolean timedOut;
-        
-        try {
-            timedOut = !latch.await(duration.toMillis(), MILLISECONDS);
-        } catch (InterruptedException e) {
-            // TODO: Remove event listener
-            throw new SleepInterruptedException(e);
-        }
+        // TODO: Remove event listener if interrupted
+        boolean timedOut = !signal.await(waitStrategy, TimeKeeper.toNanos(duration));
         
         if (timedOut) {
             throw new TimeoutException(this, duration);
@@ -64,5 +98,17 @@ public class EventListener<T> extends AbstractEvent<T> {
 
         return result;
     }
-    
+
+    /**
+     * Completes when the listener is triggered, without holding a thread in the meantime.
+     * Cancelling the returned future does not affect other waits on this listener.
+     */
+    @Override
+    public CompletableFuture<T> waitAsync(Duration duration) {
+        CompletableFuture<T> future = followers.follow();
+
+        Futures.failAfter(future, duration, () -> new TimeoutException(this, duration));
+
+        return future;
+    }
 }
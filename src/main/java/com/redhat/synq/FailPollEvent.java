@@ -50,6 +50,17 @@ public interface FailPollEvent<T> extends FailEvent<T>, PollEvent<T> {
         return pollingEvery(Duration.of(amount, unit));
     }
 
+    @Override
+    FailPollEvent<T> polling(PollingPolicy pollingPolicy);
+
+    @Override
+    FailPollEvent<T> limitedBy(RateLimiter rateLimiter);
+
+    @Override
+    default FailPollEvent<T> limitedBy(String rateLimiter) {
+        return limitedBy(RateLimiter.named(rateLimiter));
+    }
+
     @Override
     FailPollEvent<T> ignoring(Class<? extends Exception> exception);
 }
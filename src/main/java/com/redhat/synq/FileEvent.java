@@ -0,0 +1,261 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An event which occurs when a file is created, deleted or modified, with the file's path. Rather
+ * than polling the file system, waits are woken by a {@link java.nio.file.WatchService} watching
+ * the file's directory, and all file events share one watcher thread however many are awaited.
+ * An idle wait costs no thread and no system calls.
+ *
+ * <p>A directory can only be watched once it exists, and not every file system can be watched at
+ * all, so while a file's directory cannot be watched, waits check the file at a
+ * {@link #fallbackPollingEvery(Duration) fallback interval} instead, until it can be. Some file
+ * systems (network mounts in particular) accept a watch but never deliver changes; waits on files
+ * there only notice changes when they time out.
+ */
+@Experimental
+public class FileEvent extends AbstractEvent<Path> {
+    private static final Duration DEFAULT_FALLBACK_INTERVAL = Duration.ofSeconds(1);
+
+    public enum Change {
+        /** The file exists. */
+        CREATED,
+
+        /** The file does not exist. */
+        DELETED,
+
+        /**
+         * The file exists, and its modified time or size differs from when the event was created,
+         * or from when a previous wait on the event saw it modified. So waiting again waits for
+         * the next modification. A file which did not exist at that point counts as modified once
+         * it does.
+         */
+        MODIFIED
+    }
+
+    private final Path path;
+    private final Change change;
+    private final FileWatcher watcher;
+    private final PollScheduler scheduler;
+
+    /**
+     * The attributes modifications are measured against, advanced by each wait that sees one.
+     */
+    private volatile BasicFileAttributes baseline;
+
+    private volatile Duration fallbackInterval = DEFAULT_FALLBACK_INTERVAL;
+
+    public FileEvent(Path path, Change change) {
+        this(path, change, FileWatcher.shared(), PollScheduler.shared());
+    }
+
+    FileEvent(Path path, Change change, FileWatcher watcher, PollScheduler scheduler) {
+        this.path = Objects.requireNonNull(path, "path");
+        this.change = Objects.requireNonNull(change, "change");
+        this.watcher = watcher;
+        this.scheduler = scheduler;
+        this.baseline = change == Change.MODIFIED ? attributes() : null;
+
+        describedAs(() -> path + " to be " + change.name().toLowerCase());
+    }
+
+    /**
+     * Sets how often waits check the file while its directory cannot be watched.
+     */
+    public FileEvent fallbackPollingEvery(Duration interval) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("interval must be positive, but was " + interval);
+        }
+
+        this.fallbackInterval = interval;
+
+        return this;
+    }
+
+    @Override
+    public Path waitUpTo(Duration duration) {
+        CompletableFuture<Path> future = watch();
+
+        try {
+            return Futures.await(future, duration, this);
+        } finally {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * Completes once the change is seen, without holding a thread in the meantime.
+     */
+    @Override
+    public CompletableFuture<Path> waitAsync(Duration duration) {
+        CompletableFuture<Path> future = watch();
+
+        Futures.failAfter(future, duration, () -> new TimeoutException(this, duration));
+
+        return future;
+    }
+
+    /**
+     * Starts watching for the change, returning a future which completes once it is seen. Watching
+     * stops once the future is done for any reason.
+     */
+    private CompletableFuture<Path> watch() {
+        return new Watch().future;
+    }
+
+    /**
+     * One wait on the event. The file is checked whenever its directory changes, or polled while
+     * the directory cannot be watched.
+     */
+    private class Watch {
+        final CompletableFuture<Path> future = new CompletableFuture<>();
+
+        private final BasicFileAttributes original = baseline;
+
+        /**
+         * Guarded by this.
+         */
+        private FileWatcher.Registration registration;
+        private Future<?> fallback;
+
+        Watch() {
+            future.whenComplete((result, throwable) -> stop());
+
+            // Check only once watching, so that a change in between is not missed.
+            watchOrPoll();
+            check();
+        }
+
+        private void check() {
+            if (future.isDone()) {
+                return;
+            }
+
+            try {
+                BasicFileAttributes current = change == Change.MODIFIED ? attributes() : null;
+
+                if (hasChanged(current) && future.complete(path) && current != null) {
+                    baseline = current;
+                }
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+
+            // The directory may have become watchable, or stopped being watchable.
+            if (watchOrPoll()) {
+                check();
+            }
+        }
+
+        /**
+         * Makes sure the directory is either watched or, while it cannot be, polled.
+         *
+         * @return Whether the directory has just started to be watched, in which case the file
+         * must be checked again, in case it changed before then.
+         */
+        private synchronized boolean watchOrPoll() {
+            if (future.isDone() || fallback != null
+                    || (registration != null && registration.isValid())) {
+                return false;
+            }
+
+            if (registration != null) {
+                registration.cancel();
+            }
+
+            registration = watcher.watch(path, this::check);
+
+            if (registration.isValid()) {
+                return true;
+            }
+
+            try {
+                fallback = scheduler.schedule(this::poll, TimeKeeper.toNanos(fallbackInterval),
+                        TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(new SynqException(e));
+            }
+
+            return false;
+        }
+
+        private void poll() {
+            synchronized (this) {
+                fallback = null;
+            }
+
+            check();
+        }
+
+        private synchronized void stop() {
+            if (registration != null) {
+                registration.cancel();
+            }
+
+            if (fallback != null) {
+                fallback.cancel(false);
+            }
+        }
+
+        /**
+         * @param current The file's attributes, read only when watching for modification.
+         */
+        private boolean hasChanged(BasicFileAttributes current) {
+            switch (change) {
+                case CREATED:
+                    return Files.exists(path);
+                case DELETED:
+                    return Files.notExists(path);
+                case MODIFIED:
+                    return current != null && (original == null
+                            || !current.lastModifiedTime().equals(original.lastModifiedTime())
+                            || current.size() != original.size());
+                default:
+                    throw new IllegalStateException("Unknown change: " + change);
+            }
+        }
+    }
+
+    /**
+     * Reads the file's attributes, or returns null if it does not exist.
+     */
+    private BasicFileAttributes attributes() {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new SynqException(e);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Multiplexes every watched directory onto one {@link WatchService} for the default file system,
+ * serviced by a single daemon thread. Whenever anything changes in a watched directory, every
+ * check registered for that directory is run on the watcher thread, so checks should be quick.
+ *
+ * <p>Watching is best effort. Directories which do not exist, paths on other file systems, and
+ * platforms without a watch service cannot be watched, and some file systems (such as network
+ * mounts) never deliver changes at all. Callers must poll as a fallback while a
+ * {@link Registration} is not valid.
+ */
+final class FileWatcher {
+    private static FileWatcher shared;
+
+    private final WatchService watchService;
+
+    /**
+     * The checks to run for each watched directory. Guarded by this.
+     */
+    private final Map<Path, Directory> directories = new HashMap<>();
+
+    private Thread thread;
+
+    static synchronized FileWatcher shared() {
+        if (shared == null) {
+            shared = new FileWatcher();
+        }
+
+        return shared;
+    }
+
+    private FileWatcher() {
+        WatchService watchService;
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            // File events will only be polled.
+            watchService = null;
+        }
+
+        this.watchService = watchService;
+    }
+
+    /**
+     * Runs the check whenever something changes in the directory containing the file, until the
+     * returned registration is cancelled. If the directory cannot be watched, the registration is
+     * not valid to begin with, and the check is never run. If the directory stops being watchable
+     * (as when it is deleted), the check is run one last time, by which point the registration is
+     * no longer valid.
+     */
+    synchronized Registration watch(Path file, Runnable check) {
+        Path directory = file.toAbsolutePath().getParent();
+
+        if (watchService == null || directory == null) {
+            return new Registration(directory, check, null);
+        }
+
+        Directory watched = directories.get(directory);
+
+        if (watched == null) {
+            try {
+                watched = new Directory(directory.register(watchService,
+                        ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY));
+            } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+                // Missing directories and foreign file systems are left to the fallback.
+                return new Registration(directory, check, null);
+            }
+
+            directories.put(directory, watched);
+            startThread();
+        }
+
+        watched.checks.add(check);
+
+        return new Registration(directory, check, watched.key);
+    }
+
+    /**
+     * The number of directories currently being watched.
+     */
+    synchronized int watchedDirectories() {
+        return directories.size();
+    }
+
+    private synchronized void unwatch(Path directory, Runnable check) {
+        Directory watched = directories.get(directory);
+
+        if (watched == null || !watched.checks.remove(check) || !watched.checks.isEmpty()) {
+            return;
+        }
+
+        watched.key.cancel();
+        directories.remove(directory);
+    }
+
+    private synchronized void forget(WatchKey key) {
+        Path directory = (Path) key.watchable();
+        Directory watched = directories.get(directory);
+
+        if (watched != null && watched.key == key) {
+            directories.remove(directory);
+        }
+    }
+
+    private void startThread() {
+        if (thread == null) {
+            thread = Threads.daemonThreadFactory("synq-file-watcher").newThread(this::run);
+            thread.start();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            WatchKey key;
+
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            // The events themselves do not matter, as each check looks at its own file.
+            key.pollEvents();
+
+            List<Runnable> checks;
+
+            synchronized (this) {
+                Directory watched = directories.get((Path) key.watchable());
+                checks = watched == null || watched.key != key
+                        ? new ArrayList<>()
+                        : new ArrayList<>(watched.checks);
+            }
+
+            // Reset before checking, so that changes made while checking are not missed. If the
+            // directory itself is gone, its waits are left to the fallback.
+            if (!key.reset()) {
+                forget(key);
+            }
+
+            for (Runnable check : checks) {
+                try {
+                    check.run();
+                } catch (RuntimeException e) {
+                    // Checks report their own failures; one must not stop the others being run.
+                }
+            }
+        }
+    }
+
+    /**
+     * A check registered for a directory.
+     */
+    final class Registration {
+        private final Path directory;
+        private final Runnable check;
+        private final WatchKey key;
+
+        private Registration(Path directory, Runnable check, WatchKey key) {
+            this.directory = directory;
+            this.check = check;
+            this.key = key;
+        }
+
+        /**
+         * Whether the check is run when the directory changes.
+         */
+        boolean isValid() {
+            return key != null && key.isValid();
+        }
+
+        void cancel() {
+            if (key != null) {
+                unwatch(directory, check);
+            }
+        }
+    }
+
+    private static class Directory {
+        final WatchKey key;
+        final Set<Runnable> checks = new LinkedHashSet<>();
+
+        Directory(WatchKey key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Relays the outcome of a shared future to the asynchronous waits on it. Each wait is given a
+ * future of its own, which is forgotten as soon as it is done, so waits which time out or are
+ * cancelled do not pile up as dependents of a shared future that may never complete.
+ */
+final class Followers<T> {
+    private final CompletableFuture<T> source;
+    private final Set<CompletableFuture<T>> pending = ConcurrentHashMap.newKeySet();
+
+    Followers(CompletableFuture<T> source) {
+        this.source = source;
+
+        source.whenComplete((result, throwable) -> pending.forEach(this::relay));
+    }
+
+    /**
+     * A new future which completes along with the source, unless it completes some other way
+     * first.
+     */
+    CompletableFuture<T> follow() {
+        CompletableFuture<T> follower = new CompletableFuture<>();
+
+        pending.add(follower);
+        follower.whenComplete((result, throwable) -> pending.remove(follower));
+
+        // The source may have completed before the follower was added, and so not relayed to it.
+        if (source.isDone()) {
+            relay(follower);
+        }
+
+        return follower;
+    }
+
+    /**
+     * The number of followers still waiting on the source.
+     */
+    int pending() {
+        return pending.size();
+    }
+
+    /**
+     * Only called once the source is done, so this runs immediately rather than leaving another
+     * dependent on the source.
+     */
+    private void relay(CompletableFuture<T> follower) {
+        source.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                follower.completeExceptionally(throwable);
+            } else {
+                follower.complete(result);
+            }
+        });
+    }
+}
@@ -48,6 +48,11 @@ public class ForwardingCondition<T> implements Condition<T> {
         return condition.describedAs(description);
     }
 
+    @Override
+    public String description() {
+        return condition.description();
+    }
+
     @Override
     public String toString() {
         return condition.toString();
@@ -20,6 +20,7 @@
 package com.redhat.synq;
 
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 public class ForwardingEvent<T> implements Event<T> {
@@ -34,6 +35,11 @@ public class ForwardingEvent<T> implements Event<T> {
         return event.waitUpTo(duration);
     }
 
+    @Override
+    public CompletableFuture<T> waitAsync(Duration duration) {
+        return event.waitAsync(duration);
+    }
+
     @Override
     public Event<T> describedAs(String description) {
         return event.describedAs(description);
@@ -44,6 +50,11 @@ public class ForwardingEvent<T> implements Event<T> {
         return event.describedAs(description);
     }
 
+    @Override
+    public void giveBack(T result) {
+        event.giveBack(result);
+    }
+
     @Override
     public String toString() {
         return event.toString();
@@ -22,6 +22,7 @@ package com.redhat.synq;
 import static com.redhat.synq.ThrowableUtil.throwUnchecked;
 
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -51,21 +52,64 @@ public class ForwardingFailEvent<T> implements FailEvent<T> {
         if (!Thread.currentThread().isInterrupted()) {
             // If we got here, then we got a result before the timeout. For a fail event, this is
             // the condition to throw the associated exception.
+            throwUnchecked(failure(result));
+        }
 
-            StringBuilder detailMessage = new StringBuilder("Fail event occurred with result, ")
-                    .append("\"").append(result).append("\".\n")
-                    .append("Event occurs when ").append(original);
-
-            AssertionError e = new AssertionError(detailMessage);
+        return null;
+    }
 
-            if (throwable != null) {
-                throwUnchecked(throwable.apply(e).fillInStackTrace());
+    /**
+     * Completes normally, with null, if the original event times out, and exceptionally if it
+     * occurs.
+     */
+    @Override
+    public CompletableFuture<T> waitAsync(Duration duration) {
+        CompletableFuture<?> originalFuture = original.waitAsync(duration);
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        originalFuture.whenComplete((result, t) -> {
+            if (t == null) {
+                future.completeExceptionally(failure(result));
+            } else if (Futures.unwrap(t) instanceof TimeoutException) {
+                future.complete(null);
             } else {
-                throw e;
+                future.completeExceptionally(Futures.unwrap(t));
             }
-        }
+        });
 
-        return null;
+        Futures.cancelWhenDone(future, originalFuture, true);
+
+        return future;
+    }
+
+    /**
+     * The exception to throw because the original event occurred with the given result.
+     */
+    Throwable failure(Object result) {
+        StringBuilder detailMessage = new StringBuilder("Fail event occurred with result, ")
+                .append("\"").append(result).append("\".\n")
+                .append("Event occurs when ").append(original);
+
+        AssertionError e = new AssertionError(detailMessage);
+
+        return (throwable != null) ? throwable.apply(e).fillInStackTrace() : e;
+    }
+
+    /**
+     * A copy of this event, throwing the same exception, but when another event occurs.
+     */
+    final ForwardingFailEvent<T> forwarding(Event<?> original) {
+        ForwardingFailEvent<T> copy = forwardingTo(original);
+        copy.throwable = throwable;
+
+        return copy;
+    }
+
+    /**
+     * A new event of the same kind as this one, when the given event occurs.
+     */
+    ForwardingFailEvent<T> forwardingTo(Event<?> original) {
+        return new ForwardingFailEvent<>(original);
     }
 
     @Override
@@ -29,6 +29,11 @@ public class ForwardingFailPollEvent<T> extends ForwardingFailEvent<T> implement
         super(original.ignoring(Exception.class));
     }
 
+    @Override
+    ForwardingFailPollEvent<T> forwardingTo(Event<?> original) {
+        return new ForwardingFailPollEvent<>((PollEvent<?>) original);
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public FailPollEvent<T> pollingEvery(Duration pollingInterval) {
@@ -37,6 +42,27 @@ public class ForwardingFailPollEvent<T> extends ForwardingFailEvent<T> implement
         return this;
     }
     
+    @SuppressWarnings("unchecked")
+    @Override
+    public FailPollEvent<T> polling(PollingPolicy pollingPolicy) {
+        ((PollEvent<T>) original).polling(pollingPolicy);
+        
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public FailPollEvent<T> limitedBy(RateLimiter rateLimiter) {
+        ((PollEvent<T>) original).limitedBy(rateLimiter);
+
+        return this;
+    }
+    
+    @Override
+    public void nudge() {
+        ((PollEvent<?>) original).nudge();
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public FailPollEvent<T> ignoring(Class<? extends Exception> exception) {
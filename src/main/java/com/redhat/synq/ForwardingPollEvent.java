@@ -1,6 +1,7 @@
 package com.redhat.synq;
 
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 public class ForwardingPollEvent<T> implements PollEvent<T> {
@@ -14,12 +15,32 @@ public class ForwardingPollEvent<T> implements PollEvent<T> {
     public T waitUpTo(Duration duration) {
         return event.waitUpTo(duration);
     }
+
+    @Override
+    public CompletableFuture<T> waitAsync(Duration duration) {
+        return event.waitAsync(duration);
+    }
     
     @Override
     public PollEvent<T> pollingEvery(Duration pollingInterval) {
         return event.pollingEvery(pollingInterval);
     }
     
+    @Override
+    public PollEvent<T> polling(PollingPolicy pollingPolicy) {
+        return event.polling(pollingPolicy);
+    }
+
+    @Override
+    public PollEvent<T> limitedBy(RateLimiter rateLimiter) {
+        return event.limitedBy(rateLimiter);
+    }
+    
+    @Override
+    public void nudge() {
+        event.nudge();
+    }
+
     @Override
     public PollEvent<T> ignoring(Class<? extends Exception> exception) {
         return event.ignoring(exception);
@@ -35,6 +56,11 @@ public class ForwardingPollEvent<T> implements PollEvent<T> {
         return event.describedAs(description);
     }
 
+    @Override
+    public void giveBack(T result) {
+        event.giveBack(result);
+    }
+
     @Override
     public String toString() {
         return event.toString();
@@ -0,0 +1,79 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+
+/**
+ * An event which occurs when a {@link Future} is done, with the future's result. If the future
+ * fails or is cancelled, waits fail with its exception. Waits block in {@link Future#get} rather
+ * than polling {@link Future#isDone()}, so they notice completion as soon as the future does.
+ *
+ * <p>A plain future cannot notify anyone when it is done, so {@link #waitAsync(Duration)} blocks a
+ * pooled thread, unless the future is also a {@link CompletionStage}, in which case no thread is
+ * held.
+ *
+ * @see Synq#expectResultOf(Future)
+ */
+@Experimental
+public class FutureEvent<T> extends AbstractEvent<T> {
+    private final Future<? extends T> future;
+
+    /**
+     * Shared by every asynchronous wait, so that they add one dependent to the future between
+     * them, rather than one each. Null unless the future is a {@link CompletionStage}.
+     */
+    private final CompletionStageEvent<T> stage;
+
+    @SuppressWarnings("unchecked")
+    public FutureEvent(Future<? extends T> future) {
+        this.future = Objects.requireNonNull(future, "future");
+        this.stage = future instanceof CompletionStage
+                ? new CompletionStageEvent<T>((CompletionStage<? extends T>) future)
+                : null;
+
+        describedAs(() -> "result of " + future);
+
+        if (stage != null) {
+            stage.describedAs(this::toString);
+        }
+    }
+
+    @Override
+    public T waitUpTo(Duration duration) {
+        return Futures.await(future, duration, this);
+    }
+
+    /**
+     * Cancelling the returned future stops the wait, but does not cancel the awaited future.
+     */
+    @Override
+    public CompletableFuture<T> waitAsync(Duration duration) {
+        if (stage != null) {
+            return stage.waitAsync(duration);
+        }
+
+        return Futures.waitOnPooledThread(this, duration);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Utilities shared by the {@link Event#waitAsync(Duration)} implementations.
+ */
+final class Futures {
+    private Futures() {
+    }
+
+    /**
+     * Awaits the event on a pooled thread. This is the fallback for events which do not have a
+     * native, non-blocking implementation.
+     */
+    static <T> CompletableFuture<T> waitOnPooledThread(Event<T> event, Duration duration) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        try {
+            Future<?> waiter = BranchExecutor.shared().submit(() -> {
+                try {
+                    future.complete(event.waitUpTo(duration));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+
+            cancelWhenDone(future, waiter, true);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new SynqException(e));
+        }
+
+        return future;
+    }
+
+    /**
+     * Blocks on the future for up to the duration, translating its outcome into that of a wait on
+     * the event: its result is returned, its failure is rethrown unwrapped, and running out of time
+     * throws a {@link com.redhat.synq.TimeoutException} for the event.
+     */
+    static <T> T await(Future<? extends T> future, Duration duration, Event<?> event) {
+        try {
+            return future.get(TimeKeeper.toNanos(duration), TimeUnit.NANOSECONDS);
+        } catch (java.util.concurrent.TimeoutException e) {
+            throw new TimeoutException(event, duration);
+        } catch (ExecutionException e) {
+            throw ThrowableUtil.throwUnchecked(unwrap(e));
+        } catch (InterruptedException e) {
+            throw new SleepInterruptedException(e);
+        }
+    }
+
+    /**
+     * Completes the future exceptionally with the supplied exception once the duration passes,
+     * unless it completes some other way first.
+     */
+    static void failAfter(CompletableFuture<?> future, Duration duration,
+            Supplier<? extends Throwable> timeout) {
+        if (future.isDone()) {
+            return;
+        }
+
+        long nanos = TimeKeeper.toNanos(duration);
+
+        Future<?> timer = PollScheduler.shared().schedule(
+                () -> future.completeExceptionally(timeout.get()), nanos, TimeUnit.NANOSECONDS);
+
+        cancelWhenDone(future, timer, false);
+    }
+
+    /**
+     * Cancels the work backing the future once the future is done for any reason. If the future
+     * was cancelled by a caller, this stops the underlying work.
+     */
+    static void cancelWhenDone(CompletableFuture<?> future, Future<?> work,
+            boolean mayInterruptIfRunning) {
+        future.whenComplete((result, throwable) -> work.cancel(mayInterruptIfRunning));
+    }
+
+    /**
+     * Gives back the result of a wait which finished too late to be used. No one is left to throw
+     * to if the result cannot be given back, so the failure is passed to the current thread's
+     * uncaught exception handler instead of being lost along with the result.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> void giveBack(Event<? extends T> event, T result) {
+        try {
+            ((Event<T>) event).giveBack(result);
+        } catch (RuntimeException e) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    /**
+     * Strips the wrappers {@link CompletableFuture} adds to exceptions thrown by dependent stages.
+     */
+    static Throwable unwrap(Throwable throwable) {
+        while ((throwable instanceof CompletionException
+                || throwable instanceof ExecutionException)
+                && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+
+        return throwable;
+    }
+}
@@ -69,8 +69,17 @@ public class HamcrestCondition<T> implements Condition<T> {
 
     @Override
     public boolean isMet() {
+        return isMet(item);
+    }
+
+    /**
+     * Evaluates this condition with the result of the given callable in place of its own.
+     *
+     * @see CoalescedCall
+     */
+    boolean isMet(Callable<T> callable) {
         try {
-            lastResult = item.call();
+            lastResult = callable.call();
         } catch (RuntimeException e) {
             throw e;
         } catch (Exception e) {
@@ -93,13 +102,19 @@ public class HamcrestCondition<T> implements Condition<T> {
     }
 
     @Override
-    public String toString() {
-        StringBuilder toString = new StringBuilder();
-
+    public String description() {
         String desc = description.get();
-        desc = (!"".equals(desc) && desc != null)
+
+        return (!"".equals(desc) && desc != null)
                 ? desc
                 : "the item under examination is " + matcher;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder toString = new StringBuilder();
+
+        String desc = description();
 
         try {
             // Try to determine some more details
@@ -126,7 +141,7 @@ public class HamcrestCondition<T> implements Condition<T> {
     public Callable<T> getSupplier() {
         return item;
     }
-    
+
     public Matcher<? super T> getMatcher() {
         return matcher;
     }
@@ -0,0 +1,415 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Follows a growing file, such as a log, reading only the bytes appended since it last looked.
+ * Conditions created via {@link #contains(Pattern)} are met once a line matching their pattern is
+ * appended, so waiting for a log message costs I/O in proportion to what is logged during the
+ * wait rather than to the size of the log.
+ *
+ * <pre><code>
+ * LogTail log = LogTail.fromEnd(Paths.get("server.log"));
+ *
+ * server.start();
+ * log.contains("Started in \\d+ms").asEvent().waitUpTo(1, MINUTES);
+ * </code></pre>
+ *
+ * <p>A tail may be shared by any number of conditions and waiters. Appended bytes are read once,
+ * by whichever condition is evaluated first, and each line is offered to every condition. A
+ * condition only sees lines read after it was created, and once met, stays met with the first
+ * line it matched.
+ *
+ * <p>Lines are only matched once they are terminated, so a final line still being written is not
+ * matched until its line break is. If the file shrinks, it is assumed to have been truncated and
+ * is read again from the start. If the path comes to refer to a different file, as when a log is
+ * rotated, the rest of the old file is read before following the new one from its start.
+ */
+@Experimental
+public class LogTail implements Closeable {
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * Lines longer than this many characters are split, so that a file without line breaks cannot
+     * exhaust memory.
+     */
+    private static final int MAX_LINE_CHARS = 1024 * 1024;
+
+    private final Path path;
+
+    /**
+     * Held while reading, which does I/O. Unlike a monitor, this does not pin a virtual thread to
+     * its carrier while another thread reads.
+     */
+    private final Lock lock = new ReentrantLock();
+
+    /**
+     * The conditions to offer lines to. Weak, so that conditions no longer awaited are forgotten
+     * along with their waits. Guarded by the lock, as is all of the reading state below.
+     */
+    private final Set<LineCondition> conditions = Collections.newSetFromMap(new WeakHashMap<>());
+
+    /**
+     * Decodes bytes as they are read, keeping any character split across reads for the next.
+     */
+    private final CharsetDecoder decoder;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_BYTES);
+    private final StringBuilder partialLine = new StringBuilder();
+
+    private FileChannel channel;
+    private Object fileKey;
+    private long position;
+
+    /**
+     * Follows the file from its current end, so only lines appended from now on are matched.
+     */
+    public static LogTail fromEnd(Path path) {
+        return new LogTail(path, StandardCharsets.UTF_8, size(path));
+    }
+
+    /**
+     * Follows the file from its start, so the first evaluation of a condition scans what is
+     * already there.
+     */
+    public static LogTail fromStart(Path path) {
+        return new LogTail(path, StandardCharsets.UTF_8, 0);
+    }
+
+    /**
+     * @param path The file to follow. It need not exist yet.
+     * @param charset The encoding of the file's lines.
+     * @param position The offset into the file from which to start reading.
+     */
+    public LogTail(Path path, Charset charset, long position) {
+        this.path = Objects.requireNonNull(path, "path");
+        this.decoder = Objects.requireNonNull(charset, "charset").newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.position = position;
+
+        BasicFileAttributes attributes = attributes(path);
+        this.fileKey = attributes == null ? null : attributes.fileKey();
+    }
+
+    /**
+     * Returns a condition which is met once a line containing a match for the pattern is
+     * appended, with that line as its result.
+     */
+    public Condition<String> contains(Pattern pattern) {
+        LineCondition condition = new LineCondition(pattern);
+
+        lock.lock();
+
+        try {
+            conditions.add(condition);
+        } finally {
+            lock.unlock();
+        }
+
+        return condition;
+    }
+
+    public Condition<String> contains(String regex) {
+        return contains(Pattern.compile(regex));
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /**
+     * Reads whatever has been appended since last time, offering each complete line to the
+     * conditions.
+     */
+    void read() {
+        lock.lock();
+
+        try {
+            if (channel == null && !open()) {
+                return;
+            }
+
+            readAppended();
+
+            if (rotated()) {
+                // Nothing more is coming to the old file's last line.
+                decode(true);
+
+                if (partialLine.length() > 0) {
+                    emit();
+                }
+
+                closeChannel();
+                restart(0);
+
+                if (open()) {
+                    readAppended();
+                }
+            }
+        } catch (IOException e) {
+            closeChannel();
+
+            throw new ConditionEvaluationException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean open() throws IOException {
+        BasicFileAttributes attributes = attributes(path);
+
+        if (attributes == null) {
+            return false;
+        }
+
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+
+        Object key = attributes.fileKey();
+
+        // Replaced before it was first opened.
+        if (fileKey != null && key != null && !key.equals(fileKey)) {
+            restart(0);
+        }
+
+        fileKey = key;
+
+        return true;
+    }
+
+    /**
+     * Releases the file, which is otherwise held open between evaluations so that the rest of a
+     * rotated file can still be read. Evaluating a condition again reopens it where it left off.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+
+        try {
+            closeChannel();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+
+            channel = null;
+        }
+    }
+
+    private void readAppended() throws IOException {
+        if (channel.size() < position) {
+            restart(0);
+        }
+
+        while (true) {
+            int read = channel.read(buffer, position);
+
+            if (read <= 0) {
+                return;
+            }
+
+            position += read;
+            buffer.flip();
+            decode(false);
+
+            // Keeps the bytes of a character cut off by the end of the read.
+            buffer.compact();
+        }
+    }
+
+    /**
+     * Reads from the specified position afresh, forgetting any partly read line or character.
+     */
+    private void restart(long position) {
+        this.position = position;
+        buffer.clear();
+        decoder.reset();
+        partialLine.setLength(0);
+    }
+
+    /**
+     * Decodes what is in the buffer, scanning the characters for lines.
+     *
+     * @param endOfInput Whether no more bytes will follow, so that an incomplete character at the
+     * end should be decoded (as a replacement) rather than kept for later.
+     */
+    private void decode(boolean endOfInput) {
+        if (endOfInput) {
+            buffer.flip();
+        }
+
+        while (true) {
+            CoderResult result = decoder.decode(buffer, chars, endOfInput);
+            scan();
+
+            if (result.isUnderflow()) {
+                break;
+            }
+        }
+
+        if (endOfInput) {
+            while (decoder.flush(chars).isOverflow()) {
+                scan();
+            }
+
+            scan();
+            buffer.clear();
+            decoder.reset();
+        }
+    }
+
+    private boolean rotated() {
+        BasicFileAttributes attributes = attributes(path);
+
+        // Until something takes its place, the old file is all there is to follow.
+        if (attributes == null || attributes.fileKey() == null) {
+            return false;
+        }
+
+        return !attributes.fileKey().equals(fileKey);
+    }
+
+    /**
+     * Adds the decoded characters to the current line, emitting each line as it is terminated.
+     */
+    private void scan() {
+        chars.flip();
+
+        while (chars.hasRemaining()) {
+            char c = chars.get();
+
+            if (c == '\n') {
+                emit();
+            } else {
+                // Never split a surrogate pair between lines.
+                if (partialLine.length() >= MAX_LINE_CHARS && !Character.isLowSurrogate(c)) {
+                    emit();
+                }
+
+                partialLine.append(c);
+            }
+        }
+
+        chars.clear();
+    }
+
+    private void emit() {
+        if (!conditions.isEmpty()) {
+            int length = partialLine.length();
+
+            if (length > 0 && partialLine.charAt(length - 1) == '\r') {
+                length--;
+            }
+
+            String line = partialLine.substring(0, length);
+
+            for (LineCondition condition : conditions) {
+                condition.offer(line);
+            }
+        }
+
+        partialLine.setLength(0);
+    }
+
+    private static long size(Path path) {
+        BasicFileAttributes attributes = attributes(path);
+
+        return attributes == null ? 0 : attributes.size();
+    }
+
+    private static BasicFileAttributes attributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new ConditionEvaluationException(e);
+        }
+    }
+
+    private class LineCondition extends AbstractCondition<String> {
+        private final Pattern pattern;
+
+        private volatile String match;
+
+        LineCondition(Pattern pattern) {
+            this.pattern = Objects.requireNonNull(pattern, "pattern");
+
+            describedAs(() -> path + " to contain a line matching " + pattern);
+        }
+
+        @Override
+        public boolean isMet() {
+            if (match == null) {
+                read();
+            }
+
+            return match != null;
+        }
+
+        @Override
+        public String lastResult() {
+            return match;
+        }
+
+        /**
+         * Called with the tail's lock held.
+         */
+        void offer(String line) {
+            if (match == null && pattern.matcher(line).find()) {
+                match = line;
+            }
+        }
+    }
+}
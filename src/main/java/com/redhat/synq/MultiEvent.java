@@ -19,62 +19,193 @@
 
 package com.redhat.synq;
 
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
-
 import java.time.Duration;
-import java.util.concurrent.CountDownLatch;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
+/**
+ * An event that occurs when the first of any number of other events occurs, returning that event's
+ * result (or throwing its exception).
+ *
+ * <p>Composing a MultiEvent from another MultiEvent, as chaining {@link Event#or(Event)} or
+ * {@link Event#failIf(Event)} does, flattens the branches of both into one event. So a wait on
+ * {@code expect(a).or(b).or(c).failIf(d)} uses one latch for all four branches, no matter how
+ * many were chained.
+ *
+ * <p>Branches polling the same {@link java.util.concurrent.Callable} instance share its results
+ * rather than each calling it on their own schedule. A call made by one branch is reused by the
+ * others if they poll within 100 milliseconds of it, so every branch examines the same snapshot
+ * and the callable is called about once per polling interval.
+ *
+ * <p>The results of branches which finish after the race is won are {@link Event#giveBack(Object)
+ * given back} to them. A MultiEvent cannot tell which branch produced a result given back to it,
+ * so it gives nothing back itself.
+ */
 public class MultiEvent<T> implements Event<T> {
-    private final Event<? extends T> original;
+    private final List<Event<? extends T>> events;
+
+    /**
+     * The last branch added. Configuration (such as polling intervals or exceptions to throw) is
+     * delegated to this event by subclasses, since it is the one most recently composed by the
+     * fluent API.
+     */
     protected final Event<? extends T> additional;
-    private T firstResult;
-    private Throwable throwable;
-    private Event<? extends T> eventThatThrewException;
-    private CountDownLatch latch = new CountDownLatch(1);
+
+    /**
+     * Fail events return normally only once they time out. If there is anything else to wait for,
+     * that is not a reason to stop waiting.
+     */
+    private final boolean onlyFailEvents;
+
+    private WaitStrategy waitStrategy = WaitStrategy.parking();
 
     public MultiEvent(Event<? extends T> original, Event<? extends T> additional) {
-        this.original = original;
-        this.additional = additional;
+        this(Arrays.asList(original, additional));
+    }
+
+    public MultiEvent(List<? extends Event<? extends T>> events) {
+        if (events.size() < 2) {
+            throw new IllegalArgumentException("A MultiEvent requires at least two events, but "
+                    + "got " + events.size());
+        }
+
+        List<Event<? extends T>> flattened = new ArrayList<>(events.size());
+
+        for (Event<? extends T> event : events) {
+            if (event instanceof MultiEvent) {
+                flattened.addAll(((MultiEvent<? extends T>) event).events);
+            } else {
+                flattened.add(event);
+            }
+        }
+
+        this.events = Collections.unmodifiableList(flattened);
+        this.additional = flattened.get(flattened.size() - 1);
+        this.onlyFailEvents = flattened.stream().allMatch(e -> e instanceof FailEvent);
     }
 
     @Override
     public T waitUpTo(Duration duration) {
-        // Could using an executor service instead make testing easier?
-        Thread originalWaiter = new Thread(() -> tryWaitUpTo(original, duration));
-        Thread additionalWaiter = new Thread(() -> tryWaitUpTo(additional, duration));
+        // Branches sharing calls are awaited as copies, reporting as the branches themselves.
+        List<Event<? extends T>> awaited = CoalescedCall.share(events);
+        Outcome<T> outcome = new Outcome<>(onlyFailEvents, events.size(), duration);
+        List<Future<?>> waiters = new ArrayList<>(events.size());
+
+        // Branches run on pooled threads which are reused across waits, rather than spawning new
+        // threads for every branch on every wait.
+        try {
+            for (int i = 0; i < events.size(); i++) {
+                Event<? extends T> event = events.get(i);
+                Event<? extends T> copy = awaited.get(i);
 
-        originalWaiter.start();
-        additionalWaiter.start();
+                waiters.add(BranchExecutor.shared().submit(
+                        () -> outcome.tryWaitUpTo(event, copy, duration)));
+            }
+        } catch (RejectedExecutionException e) {
+            cancelAll(waiters);
+
+            throw new SynqException(e);
+        }
 
-        boolean timedOut;
+        Outcome.Result<T> result;
 
         try {
-            // Also check for TimeoutExceptions from the inner events themselves. If either of their
-            // threads beats the latch towards a timeout, we want to make sure we throw our own
-            // MultiEvent TimeoutException instead of an individual event's.
-            timedOut = !latch.await(duration.toMillis(), MILLISECONDS)
-                    || throwable instanceof TimeoutException;
-        } catch (InterruptedException e) {
-            originalWaiter.interrupt();
-            additionalWaiter.interrupt();
+            result = outcome.await(waitStrategy, duration);
+        } catch (SleepInterruptedException e) {
+            cancelAll(waiters);
 
-            throw new SleepInterruptedException(e);
+            result = outcome.close();
+
+            if (result != null && result.throwable == null) {
+                Futures.giveBack(result.event, result.value);
+            }
+
+            throw e;
         }
 
-        // We don't know which finished first so interrupt them both; it's harmless.
-        originalWaiter.interrupt();
-        additionalWaiter.interrupt();
+        // We don't know which finished first so interrupt them all; it's harmless.
+        cancelAll(waiters);
 
-        if (timedOut) {
+        // Also check for TimeoutExceptions from the inner events themselves. If any of their
+        // threads beats the latch towards a timeout, we want to make sure we throw our own
+        // MultiEvent TimeoutException instead of an individual event's.
+        if (result == null || result.throwable instanceof TimeoutException) {
             throw new TimeoutException(this, duration);
         }
 
-        if (throwable != null) {
-            throwMultiEventException(eventThatThrewException);
+        if (result.throwable != null) {
+            throwMultiEventException(result.event, result.throwable);
         }
 
-        return firstResult;
+        return result.value;
+    }
+
+    /**
+     * Starts an asynchronous wait on every branch, completing with whichever completes first, and
+     * cancelling the rest. No thread is held for the branches unless they themselves need one.
+     */
+    @Override
+    public CompletableFuture<T> waitAsync(Duration duration) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        List<CompletableFuture<? extends T>> branches = new ArrayList<>(events.size());
+        List<Event<? extends T>> awaited = CoalescedCall.share(events);
+
+        for (int i = 0; i < events.size(); i++) {
+            Event<? extends T> event = events.get(i);
+            CompletableFuture<? extends T> branch = awaited.get(i).waitAsync(duration);
+            branches.add(branch);
+
+            branch.whenComplete((result, throwable) -> {
+                if (throwable == null) {
+                    if ((onlyFailEvents || !(event instanceof FailEvent))
+                            && !future.complete(result)) {
+                        Futures.giveBack(event, result);
+                    }
+
+                    return;
+                }
+
+                throwable = Futures.unwrap(throwable);
+
+                if (throwable instanceof TimeoutException) {
+                    future.completeExceptionally(new TimeoutException(this, duration));
+                } else {
+                    future.completeExceptionally(multiEventException(event, throwable));
+                }
+            });
+        }
+
+        Futures.failAfter(future, duration, () -> new TimeoutException(this, duration));
+
+        future.whenComplete((result, throwable) -> {
+            for (CompletableFuture<? extends T> branch : branches) {
+                branch.cancel(true);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Sets how the thread awaiting this event passes the time until the first branch finishes.
+     * Parks by default; a spinning strategy notices the winning branch sooner, at the cost of a
+     * core for the duration of the wait.
+     */
+    @Experimental
+    public MultiEvent<T> waitingWith(WaitStrategy waitStrategy) {
+        this.waitStrategy = Objects.requireNonNull(waitStrategy, "waitStrategy");
+
+        return this;
     }
 
     @Override
@@ -86,7 +217,40 @@ public class MultiEvent<T> implements Event<T> {
 
     @Override
     public String toString() {
-        return original + ",\nor " + additional;
+        StringBuilder toString = new StringBuilder();
+
+        for (Event<? extends T> event : events) {
+            if (toString.length() > 0) {
+                toString.append(",\nor ");
+            }
+
+            toString.append(event);
+        }
+
+        return toString.toString();
+    }
+
+    void nudgeBranches() {
+        for (Event<? extends T> event : events) {
+            if (event instanceof PollEvent) {
+                ((PollEvent<?>) event).nudge();
+            }
+        }
+    }
+
+    /**
+     * The flattened branches of this event, in the order they were composed.
+     */
+    List<Event<? extends T>> events() {
+        return events;
+    }
+
+    /**
+     * Whether every branch of this event is a {@link FailEvent}, in which case this event returns
+     * normally if any of them do (that is, if they time out).
+     */
+    boolean onlyFailEvents() {
+        return onlyFailEvents;
     }
 
     /**
@@ -94,35 +258,127 @@ public class MultiEvent<T> implements Event<T> {
      * eliminates much excessive noise that is purely implementation detail of MultiEvents from the
      * stack trace.
      */
-    private void throwMultiEventException(Event<?> eventThatThrewException) {
-        while(throwable instanceof MultiEventException && throwable.getCause() != null) {
+    private static void throwMultiEventException(Event<?> eventThatThrewException,
+            Throwable throwable) {
+        throw multiEventException(eventThatThrewException, throwable);
+    }
+
+    static MultiEventException multiEventException(Event<?> eventThatThrewException,
+            Throwable throwable) {
+        while (throwable instanceof MultiEventException && throwable.getCause() != null) {
             eventThatThrewException = ((MultiEventException) throwable).getEvent();
             throwable = throwable.getCause();
         }
 
-        throw new MultiEventException(eventThatThrewException, throwable);
+        return new MultiEventException(eventThatThrewException, throwable);
     }
 
-    private void tryWaitUpTo(Event<? extends T> event, Duration duration) {
-        try {
-            finishWithResult(event.waitUpTo(duration));
-        } catch (Exception e) {
-            finishWithException(event, e);
+    private static void cancelAll(List<Future<?>> waiters) {
+        for (Future<?> waiter : waiters) {
+            waiter.cancel(true);
         }
     }
 
-    private synchronized void finishWithResult(T result) {
-        if (firstResult == null && throwable == null) {
-            firstResult = result;
-            latch.countDown();
+    /**
+     * The state of a single wait: whichever branch finishes first wins the compare and set, and
+     * releases the waiting thread.
+     *
+     * <p>Branches given the same duration as the MultiEvent make their last evaluation right at
+     * the deadline, so once the deadline passes the waiting thread allows a grace period for the
+     * branches to finish that evaluation before giving up on them. The grace period is a tenth of
+     * the timeout, up to {@value #MAX_FINAL_EVALUATION_GRACE_MILLIS} milliseconds, so that it
+     * never adds much to the overshoot it exists to avoid.
+     */
+    private static class Outcome<T> {
+        private static final long MAX_FINAL_EVALUATION_GRACE_MILLIS = 50;
+
+        private final AtomicReference<Result<T>> first = new AtomicReference<>();
+        private final Result<T> closed = new Result<>(null, null, null);
+        private final Signal signal = new Signal();
+        private final boolean onlyFailEvents;
+        private final AtomicInteger running;
+        private final long deadline;
+
+        Outcome(boolean onlyFailEvents, int branches, Duration duration) {
+            this.onlyFailEvents = onlyFailEvents;
+            this.running = new AtomicInteger(branches);
+            this.deadline = System.nanoTime() + TimeKeeper.toNanos(duration);
         }
-    }
 
-    private synchronized void finishWithException(Event<? extends T> eventThatThrew, Throwable e) {
-        if (throwable == null && firstResult == null) {
-            throwable = e;
-            eventThatThrewException = eventThatThrew;
-            latch.countDown();
+        /**
+         * Awaits a branch, or the copy of it made to share calls with other branches.
+         */
+        void tryWaitUpTo(Event<? extends T> event, Event<? extends T> awaited,
+                Duration duration) {
+            try {
+                T result = awaited.waitUpTo(duration);
+
+                if ((onlyFailEvents || !(event instanceof FailEvent))
+                        && !finish(new Result<>(event, result, null))) {
+                    Futures.giveBack(event, result);
+                }
+            } catch (TimeoutException e) {
+                // A branch timing out at the deadline must not beat another which is still making
+                // its last evaluation; if none succeeds, the MultiEvent times out all the same.
+                if (System.nanoTime() - deadline < 0) {
+                    finish(new Result<>(event, null, e));
+                }
+            } catch (Throwable t) {
+                // Including errors, such as the AssertionError of a fail event that occurred.
+                finish(new Result<>(event, null, t));
+            } finally {
+                // Once every branch has given up, there is nothing left to wait for.
+                if (running.decrementAndGet() == 0) {
+                    signal.set();
+                }
+            }
+        }
+
+        /**
+         * @return The first branch to finish, or null if none finished in time.
+         */
+        Result<T> await(WaitStrategy waitStrategy, Duration duration) {
+            long timeoutNanos = TimeKeeper.toNanos(duration);
+
+            if (!signal.await(waitStrategy, timeoutNanos)) {
+                signal.await(waitStrategy, Math.min(timeoutNanos / 10,
+                        TimeUnit.MILLISECONDS.toNanos(MAX_FINAL_EVALUATION_GRACE_MILLIS)));
+            }
+
+            return close();
+        }
+
+        /**
+         * @return The first branch to finish, if any. Branches finishing from now on are too late
+         * to be seen.
+         */
+        Result<T> close() {
+            return first.getAndSet(closed);
+        }
+
+        /**
+         * @return Whether this is the result of the wait.
+         */
+        private boolean finish(Result<T> result) {
+            if (first.compareAndSet(null, result)) {
+                signal.set();
+
+                return true;
+            }
+
+            return false;
+        }
+
+        private static class Result<T> {
+            final Event<?> event;
+            final T value;
+            final Throwable throwable;
+
+            Result(Event<?> event, T value, Throwable throwable) {
+                this.event = event;
+                this.value = value;
+                this.throwable = throwable;
+            }
         }
     }
 }
@@ -54,6 +54,30 @@ public class MultiEventWithFailPollEvent<T> extends MultiEvent<T> implements Fai
         return this;
     }
     
+    @SuppressWarnings("unchecked")
+    @Override
+    public FailPollEvent<T> polling(PollingPolicy pollingPolicy) {
+        ((FailPollEvent<T>) additional).polling(pollingPolicy);
+        
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public FailPollEvent<T> limitedBy(RateLimiter rateLimiter) {
+        ((FailPollEvent<T>) additional).limitedBy(rateLimiter);
+
+        return this;
+    }
+    
+    /**
+     * Nudges every polled branch.
+     */
+    @Override
+    public void nudge() {
+        nudgeBranches();
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public FailPollEvent<T> ignoring(Class<? extends Exception> exception) {
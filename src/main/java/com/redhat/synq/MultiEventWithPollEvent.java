@@ -36,6 +36,30 @@ public class MultiEventWithPollEvent<T> extends MultiEvent<T> implements PollEve
         return this;
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public PollEvent<T> polling(PollingPolicy pollingPolicy) {
+        ((PollEvent<T>) additional).polling(pollingPolicy);
+        
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public PollEvent<T> limitedBy(RateLimiter rateLimiter) {
+        ((PollEvent<T>) additional).limitedBy(rateLimiter);
+
+        return this;
+    }
+    
+    /**
+     * Nudges every polled branch.
+     */
+    @Override
+    public void nudge() {
+        nudgeBranches();
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public PollEvent<T> ignoring(Class<? extends Exception> exception) {
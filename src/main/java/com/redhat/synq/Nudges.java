@@ -0,0 +1,96 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Wakes the waits on a poll event for an immediate evaluation, as requested via
+ * {@link PollEvent#nudge()}. Waits note the current {@link #generation()} before each evaluation,
+ * and cut their following sleep short if it has changed since. Any thread may nudge.
+ */
+final class Nudges {
+    private final AtomicLong generation = new AtomicLong();
+    private final Queue<Thread> sleepers = new ConcurrentLinkedQueue<>();
+    private final Set<Runnable> listeners = ConcurrentHashMap.newKeySet();
+
+    void nudge() {
+        generation.incrementAndGet();
+
+        for (Thread sleeper : sleepers) {
+            LockSupport.unpark(sleeper);
+        }
+
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Sleeps for up to the specified time, returning early if nudged since the generation seen.
+     */
+    void sleep(TimeKeeper timeKeeper, long nanos, long seen) {
+        if (nanos <= 0) {
+            return;
+        }
+
+        Thread current = Thread.currentThread();
+        sleepers.add(current);
+
+        try {
+            timeKeeper.parkNanos(nanos, () -> generation.get() != seen);
+        } finally {
+            sleepers.remove(current);
+        }
+    }
+
+    /**
+     * Unparks the thread whenever nudged, until {@link #removeSleeper(Thread) removed}. For waits
+     * which sleep on behalf of more than one event.
+     */
+    void addSleeper(Thread sleeper) {
+        sleepers.add(sleeper);
+    }
+
+    void removeSleeper(Thread sleeper) {
+        sleepers.remove(sleeper);
+    }
+
+    /**
+     * Runs the listener on the nudging thread whenever nudged, until
+     * {@link #removeListener(Runnable) removed}. For waits which do not sleep in a thread.
+     */
+    void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+}
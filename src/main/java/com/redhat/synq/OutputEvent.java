@@ -0,0 +1,295 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import org.hamcrest.Matcher;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An event which occurs when a line of a process's output (or of any other stream) matches, with
+ * that line. Each stream is read by a pump thread of its own, and every line is tested as it
+ * arrives, so the event occurs as soon as the line is printed and nothing is polled.
+ *
+ * <p>Pumping starts as soon as the event is created and continues until the stream ends, even
+ * after a line has matched, so that a process never blocks on a full pipe. Only the most recent
+ * lines are kept, to describe the event when a wait fails. If the stream ends before any line
+ * matches, waits fail immediately rather than running out the clock. So do they once the process
+ * exits, though only after its remaining output has been read and tested.
+ *
+ * <pre><code>
+ * Process server = new ProcessBuilder("./server").start();
+ *
+ * expectOutput(server, containsString("Started on port")).waitUpTo(30, SECONDS);
+ * </code></pre>
+ *
+ * <p>Events are created through the static factories, which start pumping only once the event is
+ * fully constructed.
+ */
+@Experimental
+public final class OutputEvent extends AbstractEvent<String> {
+    private static final int RECENT_LINES = 20;
+
+    /**
+     * How long a process's output must go quiet, once it has exited, before streams which are
+     * still open are assumed to have been inherited by other processes and given up on. Output
+     * which is still being read or tested is not quiet, however long that takes.
+     */
+    private static final long EXIT_GRACE_MILLIS = 100;
+
+    private static final ThreadFactory PUMPS = Threads.daemonThreadFactory("synq-output-pump");
+
+    private final Process process;
+    private final CheckedPredicate<? super String> predicate;
+    private final Charset charset;
+    private final CompletableFuture<String> matched = new CompletableFuture<>();
+    private final Followers<String> followers = new Followers<>(matched);
+    private final List<InputStream> streams;
+    private final AtomicInteger openStreams;
+    private final CountDownLatch streamsEnded = new CountDownLatch(1);
+
+    /**
+     * Lines read so far, and lines being tested right now, by which exits tell whether output is
+     * still being drained.
+     */
+    private final AtomicLong linesRead = new AtomicLong();
+    private final AtomicInteger linesInProgress = new AtomicInteger();
+
+    /**
+     * The most recent lines of output. Guarded by itself.
+     */
+    private final Deque<String> recent = new ArrayDeque<>(RECENT_LINES);
+
+    /**
+     * Matches lines of both the standard output and standard error of the process.
+     */
+    public static OutputEvent of(Process process, CheckedPredicate<? super String> predicate) {
+        return new OutputEvent(process, Arrays.asList(process.getInputStream(),
+                process.getErrorStream()), predicate,
+                "output of process to contain a matching line").start();
+    }
+
+    /**
+     * Matches lines of both the standard output and standard error of the process.
+     */
+    public static OutputEvent of(Process process, Matcher<? super String> matcher) {
+        return new OutputEvent(process, Arrays.asList(process.getInputStream(),
+                process.getErrorStream()), matcher::matches,
+                "output of process to contain a line which is " + matcher).start();
+    }
+
+    public static OutputEvent of(InputStream output, CheckedPredicate<? super String> predicate) {
+        return new OutputEvent(null, Collections.singletonList(output), predicate,
+                "output to contain a matching line").start();
+    }
+
+    public static OutputEvent of(InputStream output, Matcher<? super String> matcher) {
+        return new OutputEvent(null, Collections.singletonList(output), matcher::matches,
+                "output to contain a line which is " + matcher).start();
+    }
+
+    private OutputEvent(Process process, List<InputStream> streams,
+            CheckedPredicate<? super String> predicate, String description) {
+        this.process = process;
+        this.streams = streams;
+        this.predicate = Objects.requireNonNull(predicate, "predicate");
+        this.charset = Charset.defaultCharset();
+        this.openStreams = new AtomicInteger(streams.size());
+
+        for (InputStream stream : streams) {
+            Objects.requireNonNull(stream, "output");
+        }
+
+        describedAs(description);
+    }
+
+    private OutputEvent start() {
+        for (InputStream stream : streams) {
+            PUMPS.newThread(() -> pump(stream)).start();
+        }
+
+        if (process != null) {
+            PUMPS.newThread(this::awaitExit).start();
+        }
+
+        return this;
+    }
+
+    @Override
+    public String waitUpTo(Duration duration) {
+        return Futures.await(matched, duration, this);
+    }
+
+    /**
+     * Completes when a line matches, without holding a thread in the meantime beyond the pumps.
+     * Cancelling the returned future does not stop the pumps, nor affect other waits on this event.
+     */
+    @Override
+    public CompletableFuture<String> waitAsync(Duration duration) {
+        CompletableFuture<String> future = followers.follow();
+
+        Futures.failAfter(future, duration, () -> new TimeoutException(this, duration));
+
+        return future;
+    }
+
+    /**
+     * Describes the event along with the most recent lines of output.
+     */
+    @Override
+    public String toString() {
+        StringBuilder toString = new StringBuilder(super.toString());
+
+        synchronized (recent) {
+            if (recent.isEmpty()) {
+                return toString.append(", however there was no output.").toString();
+            }
+
+            toString.append(",\n  however the last lines of output were:");
+
+            for (String line : recent) {
+                toString.append("\n    ").append(line);
+            }
+        }
+
+        return toString.toString();
+    }
+
+    private void pump(InputStream stream) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, charset))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                offer(line);
+            }
+        } catch (IOException e) {
+            // Usually the stream being closed by the process being destroyed; the same as its end.
+        } finally {
+            if (openStreams.decrementAndGet() == 0) {
+                end(process == null ? "Output ended" : outputEndedReason());
+                streamsEnded.countDown();
+            }
+        }
+    }
+
+    /**
+     * Fails waits once the process has exited and its output has been read to the end. Streams
+     * may be held open by other processes which inherited them, so they are only waited for until
+     * they go quiet.
+     */
+    private void awaitExit() {
+        try {
+            process.waitFor();
+
+            long read = linesRead.get();
+
+            while (!streamsEnded.await(EXIT_GRACE_MILLIS, TimeUnit.MILLISECONDS)) {
+                long readSince = linesRead.get();
+
+                if (readSince == read && linesInProgress.get() == 0) {
+                    break;
+                }
+
+                read = readSince;
+            }
+        } catch (InterruptedException e) {
+            return;
+        }
+
+        end("Process exited with code " + process.exitValue());
+    }
+
+    /**
+     * Explains the end of a process's output, which is usually because it exited.
+     */
+    private String outputEndedReason() {
+        try {
+            if (process.waitFor(EXIT_GRACE_MILLIS, TimeUnit.MILLISECONDS)) {
+                return "Process exited with code " + process.exitValue();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return "Output of process ended";
+    }
+
+    private void offer(String line) {
+        linesInProgress.incrementAndGet();
+        linesRead.incrementAndGet();
+
+        try {
+            test(line);
+        } finally {
+            linesInProgress.decrementAndGet();
+        }
+    }
+
+    private void test(String line) {
+        synchronized (recent) {
+            if (recent.size() == RECENT_LINES) {
+                recent.removeFirst();
+            }
+
+            recent.addLast(line);
+        }
+
+        if (matched.isDone()) {
+            return;
+        }
+
+        try {
+            if (predicate.test(line)) {
+                matched.complete(line);
+            }
+        } catch (RuntimeException e) {
+            matched.completeExceptionally(e);
+        } catch (Exception e) {
+            matched.completeExceptionally(new ConditionEvaluationException(e));
+        }
+    }
+
+    /**
+     * Fails waits, unless a line has already matched.
+     */
+    private void end(String reason) {
+        if (!matched.isDone()) {
+            matched.completeExceptionally(new SynqException(reason + " without a match.\n"
+                    + "Event occurs when " + this));
+        }
+    }
+}
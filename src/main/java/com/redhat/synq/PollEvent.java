@@ -30,8 +30,43 @@ public interface PollEvent<T> extends Event<T> {
 
     PollEvent<T> pollingEvery(Duration pollingInterval);
 
+    /**
+     * Sets how long to wait between evaluations of the condition, replacing any interval set via
+     * {@link #pollingEvery(Duration)}.
+     */
+    @Experimental
+    PollEvent<T> polling(PollingPolicy pollingPolicy);
+
+    /**
+     * Evaluates the condition only as often, and as many at once, as the limiter allows, shared
+     * with every other event limited by it.
+     */
+    @Experimental
+    PollEvent<T> limitedBy(RateLimiter rateLimiter);
+
+    /**
+     * Limits evaluations by the {@link RateLimiter#named(String) limiter of that name}.
+     */
+    @Experimental
+    default PollEvent<T> limitedBy(String rateLimiter) {
+        return limitedBy(RateLimiter.named(rateLimiter));
+    }
+
     PollEvent<T> ignoring(Class<? extends Exception> exception);
 
+    /**
+     * Hints that the condition may have changed, so that waits currently in progress on this
+     * event evaluate it again right away instead of sleeping out the rest of their polling
+     * interval. Polling continues as normal afterwards, so a missed nudge costs only latency.
+     * May be called from any thread, at any time.
+     *
+     * <p>Does nothing by default, which is always safe: the next scheduled poll will notice the
+     * change anyway.
+     */
+    @Experimental
+    default void nudge() {
+    }
+
     @Override
     PollEvent<T> describedAs(String description);
 
@@ -0,0 +1,183 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small pool of daemon threads on which polling work is run and scheduled by deadline. By
+ * default, all {@link com.redhat.synq.ThreadedPollEvent ThreadedPollEvents} (and so all events
+ * created via {@link Condition#asEvent()}) evaluate their conditions on the {@link #shared()}
+ * scheduler, rather than each calling thread owning a polling thread of its own.
+ *
+ * <p>Idle workers time out and exit after the scheduler's keep alive, so an unused scheduler costs
+ * nothing but its queue. The shared scheduler is sized to the number of available processors
+ * unless the {@value #THREADS_PROPERTY} system property says otherwise, and can be replaced at
+ * runtime via {@link #configureShared(int, Duration)}.
+ *
+ * <p>Delayed work is kept on a {@link TimingWheel} with a single timer thread rather than in a
+ * priority queue, so scheduling and cancelling are constant time however many asynchronous waits
+ * are outstanding. Delays are rounded up to the next millisecond tick.
+ */
+public final class PollScheduler {
+    public static final String THREADS_PROPERTY = "synq.pollScheduler.threads";
+
+    private static final Duration DEFAULT_KEEP_ALIVE = Duration.ofSeconds(60);
+    private static final AtomicInteger SCHEDULER_COUNT = new AtomicInteger();
+
+    private static PollScheduler shared;
+
+    private static final long TICK_MILLIS = 1;
+
+    private final ThreadPoolExecutor executor;
+    private final TimingWheel timers;
+
+    /**
+     * Serial executors, one per thread that asks for one. Serial executors are just queues in front
+     * of this scheduler's workers; they do not own threads.
+     *
+     * @see #serialExecutor()
+     */
+    private final ThreadLocal<ExecutorService> serialExecutors =
+            ThreadLocal.withInitial(this::newSerialExecutor);
+
+    /**
+     * Returns the process wide scheduler, creating it if it has not yet been created or was shut
+     * down.
+     */
+    public static synchronized PollScheduler shared() {
+        if (shared == null || shared.isShutdown()) {
+            shared = new PollScheduler(defaultThreads(), DEFAULT_KEEP_ALIVE);
+        }
+
+        return shared;
+    }
+
+    /**
+     * Replaces the process wide scheduler with a new one of the specified size. Events created
+     * before this call keep using the scheduler they were created with, whose workers will exit
+     * once they are idle for longer than its keep alive.
+     */
+    public static synchronized PollScheduler configureShared(int threads, Duration keepAlive) {
+        shared = new PollScheduler(threads, keepAlive);
+
+        return shared;
+    }
+
+    public PollScheduler(int threads) {
+        this(threads, DEFAULT_KEEP_ALIVE);
+    }
+
+    public PollScheduler(int threads, Duration keepAlive) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive, but was " + threads);
+        }
+
+        Objects.requireNonNull(keepAlive, "keepAlive");
+
+        int id = SCHEDULER_COUNT.incrementAndGet();
+        long keepAliveNanos = Math.max(1, keepAlive.toNanos());
+
+        executor = new ThreadPoolExecutor(threads, threads, keepAliveNanos, TimeUnit.NANOSECONDS,
+                new LinkedBlockingQueue<>(), Threads.daemonThreadFactory("synq-poller-" + id));
+        executor.allowCoreThreadTimeOut(true);
+        timers = new TimingWheel(TICK_MILLIS, TimeUnit.MILLISECONDS, keepAliveNanos, executor,
+                Threads.daemonThreadFactory("synq-timer-" + id));
+    }
+
+    /**
+     * Runs the task on one of this scheduler's workers as soon as one is free.
+     */
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Runs the task on one of this scheduler's workers once the delay has elapsed. Cancelling the
+     * returned future before then removes the task in constant time.
+     *
+     * <p>Tasks scheduled before the scheduler is shut down still run once their delay elapses, on
+     * the timer thread if the workers no longer accept work, so they should be short.
+     */
+    public Future<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        if (isShutdown()) {
+            throw new RejectedExecutionException("Poll scheduler has been shut down.");
+        }
+
+        return timers.schedule(task, delay, unit);
+    }
+
+    /**
+     * Returns the serial executor associated with the current thread. Tasks submitted to a serial
+     * executor run one at a time, in order, on this scheduler's workers. That is, if a thread is
+     * simultaneously awaiting multiple events that it constructed, their conditions will never be
+     * evaluated simultaneously.
+     */
+    public ExecutorService serialExecutor() {
+        return serialExecutors.get();
+    }
+
+    /**
+     * Creates a new serial executor backed by this scheduler's workers.
+     *
+     * @see #serialExecutor()
+     */
+    public ExecutorService newSerialExecutor() {
+        return new SerialExecutor(executor);
+    }
+
+    public int getPoolSize() {
+        return executor.getPoolSize();
+    }
+
+    public int getMaximumPoolSize() {
+        return executor.getCorePoolSize();
+    }
+
+    /**
+     * The number of delayed tasks which have been scheduled but have not yet run or been cancelled.
+     */
+    public long getScheduledCount() {
+        return timers.pending();
+    }
+
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    /**
+     * Stops accepting new work. Already queued and scheduled work is allowed to finish.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static int defaultThreads() {
+        return Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The built in {@link PollingPolicy PollingPolicies}.
+ */
+final class PollingPolicies {
+    private PollingPolicies() {
+    }
+
+    private static long positiveNanos(Duration duration, String name) {
+        Objects.requireNonNull(duration, name);
+
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException(name + " must not be negative, but was " + duration);
+        }
+
+        return TimeKeeper.toNanos(duration);
+    }
+
+    private static long randomBetween(long min, long max) {
+        return max <= min ? min : ThreadLocalRandom.current().nextLong(min, max);
+    }
+
+    static final class Fixed implements PollingPolicy {
+        private final Duration interval;
+        private final long intervalNanos;
+
+        Fixed(Duration interval) {
+            this.intervalNanos = positiveNanos(interval, "interval");
+            this.interval = interval;
+        }
+
+        @Override
+        public long nextDelayNanos(int evaluations, long elapsedNanos, long previousDelayNanos) {
+            return intervalNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "every " + interval;
+        }
+    }
+
+    static final class Exponential implements PollingPolicy {
+        private final Duration initial;
+        private final double multiplier;
+        private final Duration max;
+        private final long initialNanos;
+        private final long maxNanos;
+
+        Exponential(Duration initial, double multiplier, Duration max) {
+            if (!(multiplier >= 1)) {
+                throw new IllegalArgumentException("multiplier must be at least 1, but was "
+                        + multiplier);
+            }
+
+            this.initialNanos = positiveNanos(initial, "initial");
+            this.maxNanos = positiveNanos(max, "max");
+            this.initial = initial;
+            this.multiplier = multiplier;
+            this.max = max;
+        }
+
+        @Override
+        public long nextDelayNanos(int evaluations, long elapsedNanos, long previousDelayNanos) {
+            if (previousDelayNanos <= 0) {
+                return Math.min(initialNanos, maxNanos);
+            }
+
+            return (long) Math.min(maxNanos, previousDelayNanos * multiplier);
+        }
+
+        @Override
+        public String toString() {
+            return "with exponential backoff from " + initial + ", multiplied by " + multiplier
+                    + " up to " + max;
+        }
+    }
+
+    static final class DecorrelatedJitter implements PollingPolicy {
+        private final Duration base;
+        private final Duration max;
+        private final long baseNanos;
+        private final long maxNanos;
+
+        DecorrelatedJitter(Duration base, Duration max) {
+            this.baseNanos = positiveNanos(base, "base");
+            this.maxNanos = positiveNanos(max, "max");
+            this.base = base;
+            this.max = max;
+        }
+
+        @Override
+        public long nextDelayNanos(int evaluations, long elapsedNanos, long previousDelayNanos) {
+            long previous = Math.max(previousDelayNanos, baseNanos);
+            long upper = previous > Long.MAX_VALUE / 3 ? Long.MAX_VALUE : previous * 3;
+
+            return Math.min(maxNanos, randomBetween(baseNanos, upper));
+        }
+
+        @Override
+        public String toString() {
+            return "with decorrelated jitter from " + base + " up to " + max;
+        }
+    }
+
+    static final class FastThenSlow implements PollingPolicy {
+        private final Duration fast;
+        private final Duration fastFor;
+        private final Duration slow;
+        private final long fastNanos;
+        private final long fastForNanos;
+        private final long slowNanos;
+
+        FastThenSlow(Duration fast, Duration fastFor, Duration slow) {
+            this.fastNanos = positiveNanos(fast, "fast");
+            this.fastForNanos = positiveNanos(fastFor, "fastFor");
+            this.slowNanos = positiveNanos(slow, "slow");
+            this.fast = fast;
+            this.fastFor = fastFor;
+            this.slow = slow;
+        }
+
+        @Override
+        public long nextDelayNanos(int evaluations, long elapsedNanos, long previousDelayNanos) {
+            return elapsedNanos < fastForNanos ? fastNanos : slowNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "every " + fast + " for " + fastFor + ", then every " + slow;
+        }
+    }
+
+    static final class Jittered implements PollingPolicy {
+        private final PollingPolicy policy;
+        private final double fraction;
+
+        Jittered(PollingPolicy policy, double fraction) {
+            if (!(fraction >= 0 && fraction <= 1)) {
+                throw new IllegalArgumentException("fraction must be between 0 and 1, but was "
+                        + fraction);
+            }
+
+            this.policy = Objects.requireNonNull(policy, "policy");
+            this.fraction = fraction;
+        }
+
+        @Override
+        public long nextDelayNanos(int evaluations, long elapsedNanos, long previousDelayNanos) {
+            long delay = policy.nextDelayNanos(evaluations, elapsedNanos, previousDelayNanos);
+
+            if (fraction == 0) {
+                return delay;
+            }
+
+            return (long) (delay * (1 + ThreadLocalRandom.current().nextDouble(-fraction, fraction)));
+        }
+
+        /**
+         * Jitters the wrapped policy's own policy for the condition, so that it still learns.
+         */
+        @Override
+        public PollingPolicy forCondition(String description) {
+            return new Jittered(policy.forCondition(description), fraction);
+        }
+
+        @Override
+        public void conditionMet(int evaluations, long elapsedNanos) {
+            policy.conditionMet(evaluations, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return policy + " (with up to " + Math.round(fraction * 100) + "% jitter)";
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.time.Duration;
+
+/**
+ * Decides how long a {@link PollEvent} waits between evaluations of its condition.
+ *
+ * <p>Policies are consulted after every evaluation which did not find the condition met, and are
+ * given everything they need to decide about the wait in progress, so a single policy may be
+ * shared by any number of events and concurrent waits. The built in policies are immutable.
+ *
+ * <p>{@code toString()} is used in the descriptions of poll events, following "polling", as in
+ * "polling every PT1S".
+ *
+ * @see PollEvent#polling(PollingPolicy)
+ */
+@Experimental
+@FunctionalInterface
+public interface PollingPolicy {
+    /**
+     * @param evaluations How many times the condition has been evaluated so far during this wait.
+     * Always at least 1.
+     * @param elapsedNanos How long the wait has been going on for.
+     * @param previousDelayNanos The delay this policy returned after the previous evaluation, or 0
+     * if there was no previous evaluation.
+     * @return How long to wait before evaluating the condition again, in nanoseconds.
+     */
+    long nextDelayNanos(int evaluations, long elapsedNanos, long previousDelayNanos);
+
+    /**
+     * Returns the policy to use for a single wait on a condition with the specified
+     * {@link Condition#description() description}. Policies which do not learn from previous
+     * waits, including all of the other built in policies, return themselves.
+     */
+    default PollingPolicy forCondition(String description) {
+        return this;
+    }
+
+    /**
+     * Called when a wait using this policy finds its condition met.
+     *
+     * @param evaluations How many times the condition was evaluated, including the last.
+     * @param elapsedNanos How long the wait took.
+     */
+    default void conditionMet(int evaluations, long elapsedNanos) {
+    }
+
+    /**
+     * Returns a policy which randomly varies the delays of this one by up to the specified
+     * fraction, either way. For example, with a fraction of 0.1 a delay of 1 second becomes
+     * anything from 0.9 to 1.1 seconds. This stops many waits which began at the same time from
+     * polling in lockstep.
+     */
+    default PollingPolicy withJitter(double fraction) {
+        return new PollingPolicies.Jittered(this, fraction);
+    }
+
+    /**
+     * Waits the same interval after every evaluation.
+     */
+    static PollingPolicy fixed(Duration interval) {
+        return new PollingPolicies.Fixed(interval);
+    }
+
+    /**
+     * Waits the initial delay after the first evaluation, and multiplies the delay by the
+     * multiplier after each subsequent evaluation, up to the maximum delay.
+     */
+    static PollingPolicy exponential(Duration initial, double multiplier, Duration max) {
+        return new PollingPolicies.Exponential(initial, multiplier, max);
+    }
+
+    /**
+     * Backs off exponentially, but with each delay chosen at random between the base delay and
+     * three times the previous delay, up to the maximum delay. Concurrent waits spread their polls
+     * out quickly, rather than backing off in step with each other.
+     */
+    static PollingPolicy decorrelatedJitter(Duration base, Duration max) {
+        return new PollingPolicies.DecorrelatedJitter(base, max);
+    }
+
+    /**
+     * Learns how long conditions take to be met, and concentrates polls around that time. Each
+     * condition is recognised by its {@link Condition#description() description}, so conditions
+     * should be {@link Condition#describedAs(String) described} with text which does not vary from
+     * one wait to the next.
+     *
+     * <p>For each description, the time each successful wait took is recorded in a streaming
+     * quantile sketch. Until a few waits have been recorded, conditions are polled with a gentle
+     * exponential backoff from the minimum interval. After that, the first poll after the initial
+     * evaluation is put off until around the 5th percentile of the learned times, polls are
+     * frequent until the 99th percentile, and then back off again up to the maximum interval. Older
+     * waits are gradually forgotten, so the policy follows conditions whose timing drifts.
+     *
+     * <p>Delays are never shorter than the minimum or longer than the maximum interval.
+     */
+    static PollingPolicy adaptive(Duration minInterval, Duration maxInterval) {
+        return new AdaptivePollingPolicy(minInterval, maxInterval);
+    }
+
+    /**
+     * Polls at the fast interval until the wait has been going on for the specified duration, and
+     * at the slow interval thereafter. Useful when a condition is usually met quickly, but
+     * occasionally takes much longer.
+     */
+    static PollingPolicy fastThenSlow(Duration fast, Duration fastFor, Duration slow) {
+        return new PollingPolicies.FastThenSlow(fast, fastFor, slow);
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An event which occurs once something is listening on a TCP port, that is, once a connection to
+ * it can be made, with the address connected to. The connection is closed straight away.
+ *
+ * <p>Connection attempts are non-blocking and made through one shared selector thread, and the
+ * delays between them are scheduled on the {@link PollScheduler}, so waiting on hundreds of ports
+ * at once holds no threads of its own. Each attempt gives up after its
+ * {@link #connectTimeout(Duration) connect timeout}, and failed attempts are retried according to
+ * the event's {@link #polling(PollingPolicy) polling policy}, which backs off exponentially from
+ * 10 milliseconds to a second by default. The host name is resolved again for each attempt, so
+ * it need not resolve yet either. As resolving can block, it is done on a pooled thread, never on
+ * the selector or scheduler threads.
+ */
+@Experimental
+public class PortEvent extends AbstractEvent<InetSocketAddress> {
+    private static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(1);
+    private static final PollingPolicy DEFAULT_POLLING_POLICY =
+            PollingPolicy.exponential(Duration.ofMillis(10), 2, Duration.ofSeconds(1));
+
+    private final String host;
+    private final int port;
+    private final PortWatcher watcher;
+    private final PollScheduler scheduler;
+
+    private Duration connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private PollingPolicy pollingPolicy = DEFAULT_POLLING_POLICY;
+
+    public PortEvent(String host, int port) {
+        this(host, port, PortWatcher.shared(), PollScheduler.shared());
+    }
+
+    PortEvent(String host, int port, PortWatcher watcher, PollScheduler scheduler) {
+        if (port < 0 || port > 0xFFFF) {
+            throw new IllegalArgumentException("port out of range: " + port);
+        }
+
+        this.host = Objects.requireNonNull(host, "host");
+        this.port = port;
+        this.watcher = watcher;
+        this.scheduler = scheduler;
+
+        describedAs(() -> host + ":" + port + " to accept connections");
+    }
+
+    /**
+     * Sets how long each connection attempt may take before it is abandoned and retried.
+     */
+    public PortEvent connectTimeout(Duration timeout) {
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("timeout must be positive, but was " + timeout);
+        }
+
+        this.connectTimeout = timeout;
+
+        return this;
+    }
+
+    /**
+     * Sets the delays between failed connection attempts.
+     */
+    public PortEvent polling(PollingPolicy pollingPolicy) {
+        this.pollingPolicy = Objects.requireNonNull(pollingPolicy, "pollingPolicy");
+
+        return this;
+    }
+
+    public PortEvent pollingEvery(Duration interval) {
+        return polling(PollingPolicy.fixed(interval));
+    }
+
+    @Override
+    public InetSocketAddress waitUpTo(Duration duration) {
+        CompletableFuture<InetSocketAddress> future = new Watch(duration).future;
+
+        try {
+            return Futures.await(future, duration, this);
+        } finally {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * Completes once a connection is made, without holding a thread in the meantime.
+     */
+    @Override
+    public CompletableFuture<InetSocketAddress> waitAsync(Duration duration) {
+        CompletableFuture<InetSocketAddress> future = new Watch(duration).future;
+
+        Futures.failAfter(future, duration, () -> new TimeoutException(this, duration));
+
+        return future;
+    }
+
+    /**
+     * One wait on the event: a chain of connection attempts, each scheduled once the last fails.
+     */
+    private class Watch {
+        final CompletableFuture<InetSocketAddress> future = new CompletableFuture<>();
+
+        private final PollingPolicy pollingPolicy;
+        private final long timeoutNanos;
+        private final long start = System.nanoTime();
+
+        /**
+         * Only accessed by attempt callbacks, which all run on the selector thread.
+         */
+        private int attempts;
+        private long delay;
+
+        private volatile Future<?> nextAttempt;
+
+        Watch(Duration duration) {
+            this.pollingPolicy = PortEvent.this.pollingPolicy.forCondition(PortEvent.this.toString());
+            this.timeoutNanos = TimeKeeper.toNanos(duration);
+
+            future.whenComplete((result, throwable) -> {
+                Future<?> scheduled = nextAttempt;
+
+                if (scheduled != null) {
+                    scheduled.cancel(false);
+                }
+            });
+
+            attempt();
+        }
+
+        private void attempt() {
+            if (future.isDone()) {
+                return;
+            }
+
+            try {
+                nextAttempt = BranchExecutor.shared().submit(() -> {
+                    // Unresolved if the host name does not resolve (yet), which fails the attempt.
+                    InetSocketAddress address = new InetSocketAddress(host, port);
+
+                    watcher.connect(address, TimeKeeper.toNanos(connectTimeout), this::attempted);
+                });
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(new SynqException(e));
+                return;
+            }
+
+            // Completed while submitting; make sure the attempt does not linger.
+            if (future.isDone()) {
+                nextAttempt.cancel(false);
+            }
+        }
+
+        private void attempted(InetSocketAddress address, boolean connected) {
+            long elapsed = System.nanoTime() - start;
+
+            if (connected) {
+                pollingPolicy.conditionMet(attempts + 1, elapsed);
+                future.complete(address);
+                return;
+            }
+
+            if (future.isDone() || elapsed >= timeoutNanos) {
+                return;
+            }
+
+            delay = Math.max(0, pollingPolicy.nextDelayNanos(++attempts, elapsed, delay));
+
+            try {
+                // Never wait past the deadline, so that the last attempt happens right at it.
+                nextAttempt = scheduler.schedule(this::attempt,
+                        Math.min(delay, timeoutNanos - elapsed), TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(new SynqException(e));
+                return;
+            }
+
+            // Completed while scheduling; make sure the attempt does not linger.
+            if (future.isDone()) {
+                nextAttempt.cancel(false);
+            }
+        }
+    }
+}
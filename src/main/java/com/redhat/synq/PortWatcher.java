@@ -0,0 +1,207 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Makes non-blocking connection attempts on behalf of every {@link PortEvent}, multiplexed on one
+ * {@link Selector} serviced by a single daemon thread. However many ports are being waited on,
+ * no thread is held per port, and an attempt costs a socket only while it is in flight.
+ *
+ * <p>All channel work happens on the selector thread. Other threads only queue attempts and wake
+ * the selector, as registering with a selector blocks while it is selecting.
+ */
+final class PortWatcher {
+    private static PortWatcher shared;
+
+    private final Selector selector;
+    private final Queue<Attempt> requested = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Attempts in flight. Only accessed by the selector thread.
+     */
+    private final Set<Attempt> pending = new HashSet<>();
+
+    private Thread thread;
+
+    static synchronized PortWatcher shared() {
+        if (shared == null) {
+            shared = new PortWatcher();
+        }
+
+        return shared;
+    }
+
+    private PortWatcher() {
+        try {
+            selector = Selector.open();
+        } catch (IOException e) {
+            throw new SynqException(e);
+        }
+    }
+
+    /**
+     * Tries to connect to the address, giving up after the timeout, then closes the connection
+     * and passes the address, and whether it was connected to, to the callback. The callback runs
+     * on the selector thread, so should be quick. The address should already be resolved, as
+     * nothing on the selector thread may block.
+     */
+    void connect(InetSocketAddress address, long timeoutNanos,
+            BiConsumer<InetSocketAddress, Boolean> callback) {
+        requested.add(new Attempt(address, System.nanoTime() + timeoutNanos, callback));
+
+        startThread();
+        selector.wakeup();
+    }
+
+    private synchronized void startThread() {
+        if (thread == null) {
+            thread = Threads.daemonThreadFactory("synq-port-watcher").newThread(this::run);
+            thread.start();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            try {
+                selector.select(millisUntilNextTimeout());
+            } catch (ClosedSelectorException e) {
+                return;
+            } catch (IOException e) {
+                // Attempts already in flight will still time out; keep going.
+            }
+
+            for (SelectionKey key : selector.selectedKeys()) {
+                ((Attempt) key.attachment()).finish();
+            }
+
+            selector.selectedKeys().clear();
+
+            Attempt attempt;
+
+            while ((attempt = requested.poll()) != null) {
+                attempt.start();
+            }
+
+            expire();
+        }
+    }
+
+    private long millisUntilNextTimeout() {
+        if (pending.isEmpty()) {
+            // Until woken by a new attempt.
+            return 0;
+        }
+
+        long now = System.nanoTime();
+        long earliest = Long.MAX_VALUE;
+
+        for (Attempt attempt : pending) {
+            earliest = Math.min(earliest, attempt.deadline - now);
+        }
+
+        // Zero would mean forever, so round up, and select for at least a millisecond.
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(earliest + 999_999));
+    }
+
+    private void expire() {
+        long now = System.nanoTime();
+
+        for (Attempt attempt : new ArrayList<>(pending)) {
+            if (now - attempt.deadline >= 0) {
+                attempt.done(false);
+            }
+        }
+    }
+
+    private class Attempt {
+        final InetSocketAddress address;
+        final long deadline;
+        final BiConsumer<InetSocketAddress, Boolean> callback;
+
+        SocketChannel channel;
+
+        Attempt(InetSocketAddress address, long deadline,
+                BiConsumer<InetSocketAddress, Boolean> callback) {
+            this.address = address;
+            this.deadline = deadline;
+            this.callback = callback;
+        }
+
+        void start() {
+            try {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+
+                if (channel.connect(address)) {
+                    done(true);
+                    return;
+                }
+
+                channel.register(selector, SelectionKey.OP_CONNECT, this);
+                pending.add(this);
+            } catch (IOException | RuntimeException e) {
+                // Including unresolved addresses, which are simply not ready yet.
+                done(false);
+            }
+        }
+
+        void finish() {
+            try {
+                if (channel.finishConnect()) {
+                    done(true);
+                }
+            } catch (IOException e) {
+                done(false);
+            }
+        }
+
+        void done(boolean connected) {
+            pending.remove(this);
+
+            if (channel != null) {
+                try {
+                    // Also cancels its key.
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+
+            try {
+                callback.accept(address, connected);
+            } catch (RuntimeException e) {
+                // Callbacks report their own failures; one must not stop the selector.
+            }
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+
+/**
+ * A condition on a numeric value which moves steadily in one direction, such as a counter or a
+ * percentage complete, that is met once the value reaches some target.
+ *
+ * <p>Because the value is expected to progress towards the target, there is no need to poll it
+ * blindly. The {@link #etaPolicy(Duration, Duration) ETA policy} fits a rate to the values seen so
+ * far during a wait, and schedules the next evaluation for around when the value is predicted to
+ * reach the target. Events created from this condition via {@link #asEvent()} poll this way by
+ * default.
+ */
+@Experimental
+public class ProgressCondition<N extends Number> extends AbstractCondition<N> {
+    private static final Duration DEFAULT_MIN_INTERVAL = Duration.ofMillis(100);
+    private static final Duration DEFAULT_MAX_EXTRAPOLATION = Duration.ofSeconds(10);
+
+    /**
+     * How many of the most recent values a rate is fit to.
+     */
+    private static final int SAMPLES = 8;
+
+    public enum Direction {
+        /** The value counts up, and the condition is met once it is at least the target. */
+        INCREASING,
+
+        /** The value counts down, and the condition is met once it is at most the target. */
+        DECREASING
+    }
+
+    private final Callable<N> value;
+    private final Direction direction;
+    private final double target;
+
+    private N lastResult;
+
+    public ProgressCondition(Callable<N> value, Direction direction, double target) {
+        this.value = Objects.requireNonNull(value, "value");
+        this.direction = Objects.requireNonNull(direction, "direction");
+        this.target = target;
+
+        describedAs(() -> value + (direction == Direction.INCREASING
+                ? " to reach at least "
+                : " to fall to at most ") + target);
+    }
+
+    @Override
+    public boolean isMet() {
+        try {
+            lastResult = value.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ConditionEvaluationException(e);
+        }
+
+        return lastResult != null && remaining(lastResult.doubleValue()) <= 0;
+    }
+
+    @Override
+    public N lastResult() {
+        return lastResult;
+    }
+
+    public Direction direction() {
+        return direction;
+    }
+
+    public double target() {
+        return target;
+    }
+
+    /**
+     * Polls this condition using {@link #etaPolicy(Duration, Duration)}, with a minimum interval
+     * of 100 milliseconds and a maximum extrapolation of 10 seconds.
+     */
+    @Override
+    public PollEvent<N> asEvent() {
+        return super.asEvent().polling(etaPolicy(DEFAULT_MIN_INTERVAL, DEFAULT_MAX_EXTRAPOLATION));
+    }
+
+    /**
+     * Polls this condition using {@link #etaPolicy(Duration, Duration)}, with a minimum interval
+     * of 100 milliseconds and a maximum extrapolation of 10 seconds.
+     */
+    @Override
+    public PollEvent<N> asEvent(TimeKeeper timeKeeper) {
+        return super.asEvent(timeKeeper)
+                .polling(etaPolicy(DEFAULT_MIN_INTERVAL, DEFAULT_MAX_EXTRAPOLATION));
+    }
+
+    /**
+     * Returns a policy which, after each evaluation of this condition, fits a rate of progress to
+     * the most recent values and waits until the value is predicted to reach the target.
+     *
+     * <p>The policy only makes sense for events which evaluate this condition, as it reads the
+     * condition's {@link #lastResult() last result}.
+     *
+     * @param minInterval The shortest delay between evaluations, such as when the value is
+     * predicted to reach the target very soon.
+     * @param maxExtrapolation The longest delay between evaluations. A prediction further out than
+     * this is not trusted, and nor is a value which is not progressing at all, so the condition is
+     * evaluated again after this long.
+     */
+    public PollingPolicy etaPolicy(Duration minInterval, Duration maxExtrapolation) {
+        return new EtaPolicy(minInterval, maxExtrapolation);
+    }
+
+    /**
+     * How far the value is from the target, positive if it has yet to reach it.
+     */
+    private double remaining(double current) {
+        return direction == Direction.INCREASING ? target - current : current - target;
+    }
+
+    private class EtaPolicy implements PollingPolicy {
+        private final Duration minInterval;
+        private final Duration maxExtrapolation;
+        private final long minNanos;
+        private final long maxNanos;
+
+        EtaPolicy(Duration minInterval, Duration maxExtrapolation) {
+            this.minInterval = Objects.requireNonNull(minInterval, "minInterval");
+            this.maxExtrapolation = Objects.requireNonNull(maxExtrapolation, "maxExtrapolation");
+            this.minNanos = TimeKeeper.toNanos(minInterval);
+            this.maxNanos = TimeKeeper.toNanos(maxExtrapolation);
+
+            if (maxNanos < minNanos) {
+                throw new IllegalArgumentException("maxExtrapolation must not be less than "
+                        + "minInterval, but was " + maxExtrapolation);
+            }
+        }
+
+        /**
+         * Used only if the event does not ask for a policy for its wait, in which case there is no
+         * history to extrapolate from.
+         */
+        @Override
+        public long nextDelayNanos(int evaluations, long elapsedNanos, long previousDelayNanos) {
+            return minNanos;
+        }
+
+        @Override
+        public PollingPolicy forCondition(String description) {
+            return new Estimate();
+        }
+
+        @Override
+        public String toString() {
+            return "when expected to reach " + target + ", every " + minInterval
+                    + " to " + maxExtrapolation;
+        }
+
+        /**
+         * The values seen during a single wait, and the rate fit to them.
+         */
+        private class Estimate implements PollingPolicy {
+            private final double[] times = new double[SAMPLES];
+            private final double[] values = new double[SAMPLES];
+            private int size;
+            private int next;
+
+            @Override
+            public long nextDelayNanos(int evaluations, long elapsedNanos,
+                    long previousDelayNanos) {
+                N last = lastResult;
+
+                if (last == null) {
+                    return minNanos;
+                }
+
+                times[next] = elapsedNanos;
+                values[next] = last.doubleValue();
+                next = (next + 1) % SAMPLES;
+                size = Math.min(size + 1, SAMPLES);
+
+                if (size < 2) {
+                    return minNanos;
+                }
+
+                // Progress per nanosecond towards the target.
+                double rate = direction == Direction.INCREASING ? slope() : -slope();
+
+                if (!(rate > 0)) {
+                    return maxNanos;
+                }
+
+                double eta = remaining(last.doubleValue()) / rate;
+
+                return (long) Math.max(minNanos, Math.min(maxNanos, eta));
+            }
+
+            /**
+             * The least squares slope of value over time.
+             */
+            private double slope() {
+                double meanTime = 0;
+                double meanValue = 0;
+
+                for (int i = 0; i < size; i++) {
+                    meanTime += times[i] / size;
+                    meanValue += values[i] / size;
+                }
+
+                double covariance = 0;
+                double variance = 0;
+
+                for (int i = 0; i < size; i++) {
+                    double time = times[i] - meanTime;
+
+                    covariance += time * (values[i] - meanValue);
+                    variance += time * time;
+                }
+
+                return variance == 0 ? 0 : covariance / variance;
+            }
+
+            @Override
+            public String toString() {
+                return EtaPolicy.this.toString();
+            }
+        }
+    }
+}
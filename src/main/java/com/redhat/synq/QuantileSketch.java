@@ -0,0 +1,134 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A streaming, fixed size sketch of the distribution of some durations, from which quantiles can
+ * be estimated to within a known relative error.
+ *
+ * <p>Values are counted in buckets whose bounds grow geometrically, so that every bucket spans the
+ * same relative range of values. The estimate for a quantile is the middle of the bucket it falls
+ * in, and so is within {@link #RELATIVE_ACCURACY} of the true value. Recording is lock free and
+ * constant time, and the sketch never grows, no matter how many values are recorded.
+ *
+ * <p>So that the sketch follows a distribution which changes over time, it only counts a window of
+ * the most recently recorded values. The bucket of each value is kept in a ring, and once the ring
+ * is full, recording a value uncounts the oldest. So the sketch holds exactly as many values as
+ * the window once it has filled, rather than forgetting many values at once.
+ */
+final class QuantileSketch {
+    static final double RELATIVE_ACCURACY = 0.02;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    /**
+     * Values at or below this many nanoseconds (a microsecond) are counted together.
+     */
+    private static final long MIN_NANOS = 1_000;
+
+    /**
+     * Enough buckets to cover a microsecond up to more than a day.
+     */
+    private static final int BUCKETS = bucket(Long.MAX_VALUE >> 20) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * The buckets of the values in the window, oldest overwritten first.
+     */
+    private final AtomicIntegerArray window;
+    private final AtomicLong recorded = new AtomicLong();
+
+    /**
+     * @param window How many of the most recent values the sketch holds.
+     */
+    QuantileSketch(int window) {
+        this.window = new AtomicIntegerArray(window);
+    }
+
+    void record(long nanos) {
+        int bucket = Math.min(bucket(nanos), BUCKETS - 1);
+        long index = recorded.getAndIncrement();
+        // Recorders racing a whole window apart may uncount each other's values rather than their
+        // own, which skews the estimate only slightly, and only until they are overwritten.
+        int evicted = window.getAndSet((int) (index % window.length()), bucket);
+
+        counts.incrementAndGet(bucket);
+
+        if (index >= window.length()) {
+            counts.decrementAndGet(evicted);
+        }
+    }
+
+    long count() {
+        return Math.min(recorded.get(), window.length());
+    }
+
+    /**
+     * Estimates the value below which the specified fraction of recorded values fall.
+     *
+     * @param quantile Between 0 and 1.
+     * @return The estimate in nanoseconds, or -1 if nothing has been recorded.
+     */
+    long quantile(double quantile) {
+        long total = count();
+
+        if (total == 0) {
+            return -1;
+        }
+
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+
+            if (seen >= rank && seen > 0) {
+                return value(i);
+            }
+        }
+
+        return value(BUCKETS - 1);
+    }
+
+    private static int bucket(long nanos) {
+        if (nanos <= MIN_NANOS) {
+            return 0;
+        }
+
+        return (int) Math.ceil(Math.log((double) nanos / MIN_NANOS) / LOG_GAMMA);
+    }
+
+    /**
+     * The value in the middle of the bucket, relative to its bounds.
+     */
+    private static long value(int bucket) {
+        if (bucket == 0) {
+            return MIN_NANOS;
+        }
+
+        return (long) (MIN_NANOS * Math.pow(GAMMA, bucket) * 2 / (GAMMA + 1));
+    }
+}
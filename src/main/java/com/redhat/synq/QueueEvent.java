@@ -0,0 +1,119 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An event which occurs when an element is available from a {@link BlockingQueue}, with that
+ * element. Each wait that returns takes its element off the queue, so waiting again waits for the
+ * next one. Waits block in {@link BlockingQueue#poll(long, TimeUnit)} rather than polling the
+ * queue's size, so they are handed an element as soon as one is put on the queue.
+ *
+ * <p>A wait which loses a race with another event (as with {@link #or(Event)}) may still have
+ * taken an element by the time it is cancelled. Such an element is {@link #giveBack(Object) given
+ * back}: to the head of the queue if it is a {@link BlockingDeque}, so that order is kept, or
+ * otherwise to its tail.
+ *
+ * @see Synq#expectElementFrom(BlockingQueue)
+ */
+@Experimental
+public class QueueEvent<T> extends AbstractEvent<T> {
+    private final BlockingQueue<T> queue;
+
+    public QueueEvent(BlockingQueue<T> queue) {
+        this.queue = Objects.requireNonNull(queue, "queue");
+
+        describedAs(() -> "element from " + queue);
+    }
+
+    @Override
+    public T waitUpTo(Duration duration) {
+        T element;
+
+        try {
+            element = queue.poll(TimeKeeper.toNanos(duration), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            throw new SleepInterruptedException(e);
+        }
+
+        if (element == null) {
+            throw new TimeoutException(this, duration);
+        }
+
+        return element;
+    }
+
+    /**
+     * Blocks a pooled thread on the queue, as a queue cannot notify anyone when an element is put
+     * on it. Cancelling the returned future interrupts that thread.
+     */
+    @Override
+    public CompletableFuture<T> waitAsync(Duration duration) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        try {
+            Future<?> waiter = BranchExecutor.shared().submit(() -> {
+                try {
+                    T element = waitUpTo(duration);
+
+                    // Cancelled after the element was taken; do not lose it.
+                    if (!future.complete(element)) {
+                        Futures.giveBack(this, element);
+                    }
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+
+            Futures.cancelWhenDone(future, waiter, true);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new SynqException(e));
+        }
+
+        return future;
+    }
+
+    /**
+     * Puts back an element which was taken by a wait whose result went unused.
+     *
+     * @throws SynqException if the queue has no room for the element. It has already been taken
+     * off the queue, so is otherwise lost.
+     */
+    @Override
+    public void giveBack(T element) {
+        boolean returned = queue instanceof BlockingDeque
+                ? ((BlockingDeque<T>) queue).offerFirst(element)
+                : queue.offer(element);
+
+        if (!returned) {
+            throw new SynqException("Could not give back " + element + " to " + queue
+                    + ", as it is full. The element was taken by a wait whose result went "
+                    + "unused, and has been lost.");
+        }
+    }
+}
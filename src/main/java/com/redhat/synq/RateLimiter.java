@@ -0,0 +1,271 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits how often, and how many at once, the conditions of poll events tagged with it are
+ * evaluated, across every thread waiting on them. Use one per resource that polls put load on,
+ * such as a local service many parallel tests wait on:
+ *
+ * <pre><code>
+ * RateLimiter.named("inventory-service").limitTo(20, 4);
+ *
+ * expectCallTo(inventory::count, c -&gt; c &gt; 0).limitedBy("inventory-service");
+ * </code></pre>
+ *
+ * <p>The rate is enforced by a token bucket which holds up to one second's worth of polls, so
+ * short bursts are allowed after idle periods. Waiters are served in the order they arrive. A
+ * limiter that has not been given limits does not limit anything, so events may be tagged with a
+ * name before (or without) the limiter of that name being configured.
+ *
+ * <p>Polls held back by a limiter still count towards their event's timeout. If a poll cannot be
+ * made before the deadline, the event times out without making it.
+ */
+@Experimental
+public final class RateLimiter {
+    private static final Map<String, RateLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+    /**
+     * How soon a poll turned away by the in-flight cap, without blocking, should try again.
+     */
+    private static final long IN_FLIGHT_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String name;
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final java.util.concurrent.locks.Condition slotFreed = lock.newCondition();
+
+    private long intervalNanos;
+    private double maxStoredPermits;
+    private int maxInFlight;
+
+    private double storedPermits;
+    private long nextFreeNanos = System.nanoTime();
+    private int inFlight;
+    private long throttled;
+
+    /**
+     * Returns the process wide limiter of the specified name, creating it (without any limits) if
+     * it does not exist yet.
+     */
+    public static RateLimiter named(String name) {
+        return LIMITERS.computeIfAbsent(name, RateLimiter::new);
+    }
+
+    private RateLimiter(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Limits polls to the specified rate, and to no more than the specified number evaluating at
+     * once. Either limit may be removed by passing {@link Double#POSITIVE_INFINITY} or 0
+     * respectively.
+     */
+    public RateLimiter limitTo(double pollsPerSecond, int maxInFlight) {
+        if (!(pollsPerSecond > 0)) {
+            throw new IllegalArgumentException("pollsPerSecond must be positive, but was "
+                    + pollsPerSecond);
+        }
+
+        if (maxInFlight < 0) {
+            throw new IllegalArgumentException("maxInFlight must not be negative, but was "
+                    + maxInFlight);
+        }
+
+        lock.lock();
+
+        try {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / pollsPerSecond);
+            this.maxStoredPermits = Math.max(1, pollsPerSecond);
+            this.storedPermits = Math.min(storedPermits, maxStoredPermits);
+            this.maxInFlight = maxInFlight;
+
+            slotFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        return this;
+    }
+
+    /**
+     * The number of polls which had to wait for this limiter, or which it turned away.
+     */
+    public long getThrottledCount() {
+        lock.lock();
+
+        try {
+            return throttled;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimiter(" + name + ")";
+    }
+
+    /**
+     * Blocks until a poll may be made, for no longer than the timeout. If this returns true, the
+     * caller must {@link #release()} once the poll is done.
+     *
+     * <p>The next permit is reserved first, so that waiters are served in order, but a slot among
+     * those in flight is only taken once that permit is due. Polls waiting for their permit do not
+     * hold slots that polls able to run could use.
+     */
+    boolean acquire(long timeoutNanos) {
+        long deadline = System.nanoTime() + Math.max(0, timeoutNanos);
+        long waitNanos;
+
+        lock.lock();
+
+        try {
+            long now = System.nanoTime();
+            waitNanos = waitForPermit(now);
+
+            // A permit free right away may be taken even if the deadline has just passed.
+            if (waitNanos > 0 && now + waitNanos - deadline > 0) {
+                throttled++;
+                return false;
+            }
+
+            takePermit(now);
+        } finally {
+            lock.unlock();
+        }
+
+        if (waitNanos > 0) {
+            WaitStrategy.parking().pause(waitNanos);
+        }
+
+        boolean waited = waitNanos > 0;
+
+        lock.lock();
+
+        try {
+            while (maxInFlight > 0 && inFlight >= maxInFlight) {
+                long remaining = deadline - System.nanoTime();
+
+                // The permit is spent regardless, as later waiters have been scheduled after it.
+                if (remaining <= 0) {
+                    throttled++;
+                    return false;
+                }
+
+                waited = true;
+                slotFreed.awaitNanos(remaining);
+            }
+
+            inFlight++;
+
+            if (waited) {
+                throttled++;
+            }
+        } catch (InterruptedException e) {
+            throw new SleepInterruptedException(e);
+        } finally {
+            lock.unlock();
+        }
+
+        return true;
+    }
+
+    /**
+     * Takes a permit if one is available right away, for callers which must not block.
+     *
+     * @param retry Whether the caller is trying again for the same poll after being turned away,
+     * in which case that poll has already been counted as throttled.
+     * @return 0 if a permit was taken, in which case the caller must {@link #release()} once the
+     * poll is done. Otherwise, how long to wait before trying again.
+     */
+    long tryAcquire(boolean retry) {
+        lock.lock();
+
+        try {
+            long now = System.nanoTime();
+            long waitNanos = (maxInFlight > 0 && inFlight >= maxInFlight)
+                    ? IN_FLIGHT_RETRY_NANOS
+                    : waitForPermit(now);
+
+            if (waitNanos > 0) {
+                if (!retry) {
+                    throttled++;
+                }
+
+                return waitNanos;
+            }
+
+            takePermit(now);
+            inFlight++;
+
+            return 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release() {
+        lock.lock();
+
+        try {
+            inFlight--;
+            slotFreed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Refills the bucket up to now, and returns how long until the next permit is free.
+     */
+    private long waitForPermit(long now) {
+        if (now - nextFreeNanos > 0) {
+            if (intervalNanos > 0) {
+                storedPermits = Math.min(maxStoredPermits,
+                        storedPermits + (double) (now - nextFreeNanos) / intervalNanos);
+            }
+
+            nextFreeNanos = now;
+        }
+
+        return storedPermits >= 1 ? 0 : nextFreeNanos - now;
+    }
+
+    /**
+     * Reserves the next permit. Permits that are not stored are reserved in turn from
+     * {@code nextFreeNanos}, so that waiters are served in order.
+     */
+    private void takePermit(long now) {
+        if (storedPermits >= 1) {
+            storedPermits--;
+        } else {
+            nextFreeNanos += intervalNanos;
+        }
+    }
+}
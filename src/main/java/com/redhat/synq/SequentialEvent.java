@@ -20,15 +20,27 @@
 package com.redhat.synq;
 
 import java.time.Duration;
-import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
+/**
+ * Awaits one event and then another, returning the result of the latter.
+ *
+ * <p>Sequences composed of other sequences, as chaining {@link Event#after(Runnable)} or
+ * {@link Event#andThenExpect(Event)} does, are flattened into a single pipeline of stages which
+ * share one deadline. Each stage is awaited with whatever time remains until that deadline, and a
+ * timeout in any stage is reported once, by the outermost sequence.
+ */
 public class SequentialEvent<T> implements Event<T> {
     protected final Event<?> first;
     protected final Event<? extends T> second;
     protected final TimeKeeper timeKeeper;
-    
+
+    private final Event<?>[] stages;
+
     public SequentialEvent(Event<?> first, Event<? extends T> second) {
         this(first, second, TimeKeeper.systemTimeKeeper());
     }
@@ -38,21 +50,46 @@ public class SequentialEvent<T> implements Event<T> {
         this.first = Objects.requireNonNull(first, "first");
         this.second = Objects.requireNonNull(second, "second");
         this.timeKeeper = Objects.requireNonNull(timeKeeper, "timeKeeper");
+
+        List<Event<?>> stages = new ArrayList<>();
+        addStages(first, stages);
+        addStages(second, stages);
+        this.stages = stages.toArray(new Event<?>[stages.size()]);
     }
     
+    @SuppressWarnings("unchecked")
     @Override
     public T waitUpTo(Duration duration) {
-        Instant start = timeKeeper.instant();
+        long timeoutNanos = TimeKeeper.toNanos(duration);
+        long start = timeKeeper.nanoTime();
+        Duration remaining = duration;
+        Object result = null;
 
         try {
-            first.waitUpTo(duration);
+            for (int i = 0; i < stages.length; i++) {
+                Event<?> stage = stages[i];
 
-            Duration remaining = duration.minus(Duration.between(start, timeKeeper.instant()));
+                // Actions take no time to "occur," so don't bother consulting the clock for them.
+                if (i > 0 && !(stage instanceof ActionEvent)) {
+                    remaining = remaining(start, timeoutNanos);
+                }
 
-            return second.waitUpTo(remaining);
+                result = stage.waitUpTo(remaining);
+            }
         } catch (TimeoutException t) {
             throw new TimeoutException(this, duration);
         }
+
+        return (T) result;
+    }
+
+    /**
+     * Awaits each stage asynchronously in turn, starting the next stage when the previous one
+     * completes. Cancelling the returned future cancels whichever stage is current.
+     */
+    @Override
+    public CompletableFuture<T> waitAsync(Duration duration) {
+        return new AsyncPipeline(duration).start();
     }
 
     @Override
@@ -62,11 +99,49 @@ public class SequentialEvent<T> implements Event<T> {
         return this;
     }
 
+    /**
+     * Gives the result back to the last stage, which produced it.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public void giveBack(T result) {
+        ((Event<T>) stages[stages.length - 1]).giveBack(result);
+    }
+
     @Override
     public String toString() {
         return first + "\nand then " + second;
     }
 
+    private Duration remaining(long start, long timeoutNanos) {
+        return Duration.ofNanos(Math.max(0, timeoutNanos - (timeKeeper.nanoTime() - start)));
+    }
+
+    void nudgeStages() {
+        for (Event<?> stage : stages) {
+            if (stage instanceof PollEvent) {
+                ((PollEvent<?>) stage).nudge();
+            }
+        }
+    }
+
+    /**
+     * The flattened stages of this event, in the order they are awaited.
+     */
+    Event<?>[] stages() {
+        return stages;
+    }
+
+    private static void addStages(Event<?> event, List<Event<?>> stages) {
+        if (event instanceof SequentialEvent) {
+            for (Event<?> stage : ((SequentialEvent<?>) event).stages) {
+                stages.add(stage);
+            }
+        } else {
+            stages.add(event);
+        }
+    }
+
     @Override
     public Event<T> after(Runnable action) {
         return new SequentialEvent<T>(first,
@@ -99,4 +174,63 @@ public class SequentialEvent<T> implements Event<T> {
                 new MultiEventWithFailPollEvent<T>(second,
                         new ForwardingFailPollEvent<T>(failEvent)));
     }
+
+    private class AsyncPipeline {
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final Duration duration;
+        private final long timeoutNanos;
+        private final long start;
+
+        private volatile CompletableFuture<?> current;
+
+        AsyncPipeline(Duration duration) {
+            this.duration = duration;
+            this.timeoutNanos = TimeKeeper.toNanos(duration);
+            this.start = timeKeeper.nanoTime();
+        }
+
+        CompletableFuture<T> start() {
+            future.whenComplete((result, throwable) -> {
+                CompletableFuture<?> stage = current;
+
+                if (future.isCancelled() && stage != null) {
+                    stage.cancel(true);
+                }
+            });
+
+            await(0, duration);
+
+            return future;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void await(int stage, Duration remaining) {
+            if (future.isDone()) {
+                return;
+            }
+
+            CompletableFuture<?> next = stages[stage].waitAsync(remaining);
+            current = next;
+
+            if (future.isCancelled()) {
+                next.cancel(true);
+            }
+
+            next.whenComplete((result, throwable) -> {
+                if (throwable != null) {
+                    throwable = Futures.unwrap(throwable);
+
+                    future.completeExceptionally(throwable instanceof TimeoutException
+                            ? new TimeoutException(SequentialEvent.this, duration)
+                            : throwable);
+                } else if (stage == stages.length - 1) {
+                    future.complete((T) result);
+                } else {
+                    await(stage + 1, stages[stage + 1] instanceof ActionEvent
+                            ? remaining
+                            : remaining(start, timeoutNanos));
+                }
+            });
+        }
+    }
 }
@@ -61,6 +61,30 @@ public class SequentialEventWithFailPollEvent<T> extends SequentialEvent<T> impl
         return this;
     }
     
+    @SuppressWarnings("unchecked")
+    @Override
+    public FailPollEvent<T> polling(PollingPolicy pollingPolicy) {
+        ((PollEvent<T>) second).polling(pollingPolicy);
+        
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public FailPollEvent<T> limitedBy(RateLimiter rateLimiter) {
+        ((PollEvent<T>) second).limitedBy(rateLimiter);
+
+        return this;
+    }
+    
+    /**
+     * Nudges every polled stage.
+     */
+    @Override
+    public void nudge() {
+        nudgeStages();
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public FailPollEvent<T> ignoring(Class<? extends Exception> exception) {
@@ -44,6 +44,30 @@ public class SequentialEventWithPollEvent<T> extends SequentialEvent<T> implemen
         return this;
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public PollEvent<T> polling(PollingPolicy pollingPolicy) {
+        ((PollEvent<T>) second).polling(pollingPolicy);
+        
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public PollEvent<T> limitedBy(RateLimiter rateLimiter) {
+        ((PollEvent<T>) second).limitedBy(rateLimiter);
+
+        return this;
+    }
+    
+    /**
+     * Nudges every polled stage.
+     */
+    @Override
+    public void nudge() {
+        nudgeStages();
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public PollEvent<T> ignoring(Class<? extends Exception> exception) {
@@ -0,0 +1,243 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs tasks one at a time, in submission order, on some other (possibly multi-threaded) executor.
+ * Does not own any threads itself.
+ */
+class SerialExecutor extends AbstractExecutorService {
+    private final Executor delegate;
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final Lock lock = new ReentrantLock();
+    private final Condition idle = lock.newCondition();
+
+    private boolean running;
+    private boolean shutdown;
+
+    SerialExecutor(Executor delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        lock.lock();
+
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("Serial executor has been shut down.");
+            }
+
+            tasks.add(task);
+
+            if (running) {
+                return;
+            }
+
+            running = true;
+        } finally {
+            lock.unlock();
+        }
+
+        dispatch();
+    }
+
+    /**
+     * Claims this executor for running a task directly on the calling thread, if it is not
+     * running or queueing any other task. While claimed, submitted tasks queue up as if a task
+     * were running; they run once the claim is {@link #release() released}.
+     *
+     * @return True if the executor was claimed, in which case the caller must release it.
+     */
+    boolean tryClaim() {
+        lock.lock();
+
+        try {
+            if (running || shutdown) {
+                return false;
+            }
+
+            running = true;
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a claim made by {@link #tryClaim()}, running any tasks submitted in the meantime.
+     */
+    void release() {
+        lock.lock();
+
+        try {
+            if (tasks.isEmpty()) {
+                running = false;
+                idle.signalAll();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            dispatch();
+        } catch (RejectedExecutionException e) {
+            // The tasks that were waiting have been cancelled; their submitters will find out.
+        }
+    }
+
+    private void dispatch() {
+        try {
+            delegate.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            lock.lock();
+
+            try {
+                for (Runnable task : tasks) {
+                    if (task instanceof Future) {
+                        ((Future<?>) task).cancel(false);
+                    }
+                }
+
+                tasks.clear();
+                running = false;
+                idle.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            throw e;
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Runnable next;
+
+            lock.lock();
+
+            try {
+                next = tasks.poll();
+
+                if (next == null) {
+                    running = false;
+                    idle.signalAll();
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                next.run();
+            } catch (RuntimeException e) {
+                // Submitted tasks are futures which capture their own exceptions; anything else
+                // should not stop the rest of the queue from running.
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        lock.lock();
+
+        try {
+            shutdown = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        lock.lock();
+
+        try {
+            shutdown = true;
+
+            List<Runnable> pending = new ArrayList<>(tasks);
+            tasks.clear();
+
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isShutdown() {
+        lock.lock();
+
+        try {
+            return shutdown;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isTerminated() {
+        lock.lock();
+
+        try {
+            return shutdown && !running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        lock.lock();
+
+        try {
+            while (!(shutdown && !running)) {
+                long remaining = deadline - System.nanoTime();
+
+                if (remaining <= 0) {
+                    return false;
+                }
+
+                idle.awaitNanos(remaining);
+            }
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
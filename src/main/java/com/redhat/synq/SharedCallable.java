@@ -0,0 +1,139 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps a callable so that any number of threads may poll it while it is only actually called
+ * about once per time to live. While a call is in flight, other callers wait for its result rather
+ * than making their own. A successful result is then returned to every caller until it is older
+ * than the time to live, after which it is dropped so that it is not kept in memory. Failures are
+ * shared by the callers waiting on that call, but are not cached.
+ *
+ * @see Synq#shared(Callable, Duration)
+ */
+class SharedCallable<T> implements Callable<T> {
+    private final Callable<T> callable;
+    private final long ttlNanos;
+    private final TimeKeeper timeKeeper;
+
+    private CompletableFuture<T> inFlight;
+    private Cached<T> cached;
+
+    SharedCallable(Callable<T> callable, Duration ttl, TimeKeeper timeKeeper) {
+        this.callable = Objects.requireNonNull(callable, "callable");
+        this.ttlNanos = TimeKeeper.toNanos(Objects.requireNonNull(ttl, "ttl"));
+        this.timeKeeper = timeKeeper;
+    }
+
+    @Override
+    public T call() throws Exception {
+        CompletableFuture<T> call;
+        boolean ours = false;
+
+        synchronized (this) {
+            if (cached != null && timeKeeper.nanoTime() - cached.calledAt < ttlNanos) {
+                return cached.value;
+            }
+
+            if (inFlight == null) {
+                inFlight = new CompletableFuture<>();
+                ours = true;
+            }
+
+            call = inFlight;
+        }
+
+        if (ours) {
+            return callForEveryone(call);
+        }
+
+        try {
+            return call.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+
+            throw (Error) e.getCause();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return callable.toString();
+    }
+
+    private T callForEveryone(CompletableFuture<T> call) throws Exception {
+        T value;
+
+        try {
+            value = callable.call();
+        } catch (Exception | Error e) {
+            synchronized (this) {
+                inFlight = null;
+            }
+
+            call.completeExceptionally(e);
+
+            throw e;
+        }
+
+        Cached<T> result = new Cached<>(value, timeKeeper.nanoTime());
+
+        synchronized (this) {
+            cached = result;
+            inFlight = null;
+        }
+
+        call.complete(value);
+
+        try {
+            PollScheduler.shared().schedule(() -> evict(result), ttlNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // The result will be replaced by the next call after it expires instead.
+        }
+
+        return value;
+    }
+
+    private synchronized void evict(Cached<T> result) {
+        if (cached == result) {
+            cached = null;
+        }
+    }
+
+    private static class Cached<T> {
+        final T value;
+        final long calledAt;
+
+        Cached(T value, long calledAt) {
+            this.value = value;
+            this.calledAt = calledAt;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A one shot latch whose waiters pass the time according to a {@link WaitStrategy}. Setting the
+ * signal unparks every waiting thread, so parked waiters wake immediately and spinning waiters
+ * notice on their next check.
+ */
+final class Signal {
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean set;
+
+    void set() {
+        set = true;
+
+        for (Thread waiter : waiters) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    boolean isSet() {
+        return set;
+    }
+
+    /**
+     * @return True if the signal was set, false if the timeout elapsed first.
+     * @throws SleepInterruptedException if the thread is interrupted while waiting.
+     */
+    boolean await(WaitStrategy waitStrategy, long timeoutNanos) {
+        if (set) {
+            return true;
+        }
+
+        Thread current = Thread.currentThread();
+        waiters.add(current);
+
+        try {
+            return waitStrategy.await(this::isSet, timeoutNanos);
+        } finally {
+            waiters.remove(current);
+        }
+    }
+}
@@ -21,7 +21,14 @@ package com.redhat.synq;
 
 import org.hamcrest.Matcher;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
 
 /**
  * Helper class that with static factories for default ConfigurableWait implementations.
@@ -37,6 +44,25 @@ public final class Synq {
         return toOccur;
     }
 
+    /**
+     * Static factory for an {@link Event} that occurs when the first of the events passed occurs,
+     * with that event's result. Equivalent to chaining {@link Event#or(Event)}.
+     */
+    @SafeVarargs
+    public static <T> Event<T> anyOf(Event<? extends T> first, Event<? extends T> second,
+            Event<? extends T>... others) {
+        // Copied element by element, so that the generic array never escapes this method.
+        List<Event<? extends T>> events = new ArrayList<>(others.length + 2);
+        events.add(first);
+        events.add(second);
+
+        for (Event<? extends T> other : others) {
+            events.add(other);
+        }
+
+        return new MultiEvent<T>(events);
+    }
+
     public static <T> PollEvent<T> expect(Condition<T> toBeMet) {
         return toBeMet.asEvent();
     }
@@ -61,6 +87,103 @@ public final class Synq {
         return expect(new HamcrestCondition<>(item, matcher));
     }
 
+    /**
+     * Expects a steadily increasing or decreasing value to reach the target, polling around when
+     * it is predicted to do so rather than at a fixed interval.
+     *
+     * @see ProgressCondition
+     */
+    @Experimental
+    public static <N extends Number> PollEvent<N> expectProgress(Callable<N> value,
+            ProgressCondition.Direction direction, double target) {
+        return expect(new ProgressCondition<>(value, direction, target));
+    }
+
+    /**
+     * Expects the stage to complete, with its result. Nothing is polled; waits are woken by the
+     * stage's own completion.
+     */
+    @Experimental
+    public static <T> Event<T> expectCompletionOf(CompletionStage<? extends T> stage) {
+        return new CompletionStageEvent<>(stage);
+    }
+
+    /**
+     * Expects the future to be done, with its result. Waits block on the future itself rather
+     * than polling it.
+     */
+    @Experimental
+    public static <T> Event<T> expectResultOf(Future<? extends T> future) {
+        return new FutureEvent<>(future);
+    }
+
+    /**
+     * Expects an element to be available from the queue, taking it as the result. Waits block on
+     * the queue itself rather than polling it.
+     */
+    @Experimental
+    public static <T> Event<T> expectElementFrom(BlockingQueue<T> queue) {
+        return new QueueEvent<>(queue);
+    }
+
+    /**
+     * Expects a line of the process's standard output or error to match the predicate, with that
+     * line. Output is read and matched as it is printed, and waits fail early if the process
+     * exits first.
+     *
+     * @see OutputEvent
+     */
+    @Experimental
+    public static Event<String> expectOutput(Process process,
+            CheckedPredicate<? super String> predicate) {
+        return OutputEvent.of(process, predicate);
+    }
+
+    /**
+     * Expects a line of the process's standard output or error to match, with that line.
+     *
+     * @see OutputEvent
+     */
+    @Experimental
+    public static Event<String> expectOutput(Process process, Matcher<? super String> matcher) {
+        return OutputEvent.of(process, matcher);
+    }
+
+    /**
+     * Expects the file to be created, deleted or modified. Waits are woken by the file system's
+     * change notifications where it delivers them, rather than polling the file.
+     *
+     * @see FileEvent
+     */
+    @Experimental
+    public static FileEvent expectFile(Path path, FileEvent.Change change) {
+        return new FileEvent(path, change);
+    }
+
+    /**
+     * Expects something to be listening on the TCP port, with the address connected to. Waits
+     * make non-blocking connection attempts through one shared selector thread, backing off
+     * between failed attempts.
+     *
+     * @see PortEvent
+     */
+    @Experimental
+    public static PortEvent expectListening(String host, int port) {
+        return new PortEvent(host, port);
+    }
+
+    /**
+     * Wraps a callable so that it may be polled by any number of waiters at once while only being
+     * called about once per time to live. Concurrent callers share one call in flight, and its
+     * result is reused until it is older than the time to live.
+     *
+     * <p>Wrap the callable once and pass the result to every condition that should share it.
+     */
+    @Experimental
+    public static <T> Callable<T> shared(Callable<T> callable, Duration ttl) {
+        return new SharedCallable<>(callable, ttl, TimeKeeper.systemTimeKeeper());
+    }
+
     public static <T> FailEvent<T> shouldNotExpect(Event<T> toOccur) {
         return failIf(toOccur);
     }
@@ -20,68 +20,67 @@
 package com.redhat.synq;
 
 import java.time.Duration;
-import java.time.Instant;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 /**
  * Polls until a condition is met, where all condition evaluation (via
- * {@link com.redhat.synq.Condition#isMet()}) is gated through the work queue of a single thread
- * executor associated with the thread that created the poll event. That is, if a thread is
- * simultaneously awaiting multiple ThreadedPollEvents that it constructed using the familiar,
- * fluent {@link com.redhat.synq.Event} API, each poll event will evaluate their conditions using a
- * shared single threaded executor service. Therefore, conditions will never be evaluated
- * simultaneously, allowing non-thread-safe code to be examined in conditions.
+ * {@link com.redhat.synq.Condition#isMet()}) is gated through the work queue of a serial executor
+ * associated with the thread that created the poll event. That is, if a thread is simultaneously
+ * awaiting multiple ThreadedPollEvents that it constructed using the familiar, fluent
+ * {@link com.redhat.synq.Event} API, each poll event will evaluate their conditions using a shared
+ * serial executor. Therefore, conditions will never be evaluated simultaneously, allowing
+ * non-thread-safe code to be examined in conditions.
+ *
+ * <p>Serial executors do not own threads; by default they run on the workers of the
+ * {@link PollScheduler#shared() shared poll scheduler}.
+ *
+ * <p>When the serial executor is idle, conditions are evaluated directly on the waiting thread
+ * instead, which still never overlaps with the executor's work. This makes a wait whose condition
+ * is already met about as cheap as a single call to it. Once an evaluation takes longer than a
+ * few milliseconds, the remaining evaluations of that wait are handed to the executor. Custom
+ * executors passed to the constructor are always used as given.
  */
 public class ThreadedPollEvent<T> implements PollEvent<T> {
-    /**
-     * Each thread that constructs a poll event gets one, and only, associated single thread
-     * executor.
-     *
-     * @see #ThreadedPollEvent(Condition)
-     * @see #ThreadedPollEvent(Condition, TimeKeeper)
-     */
-    private static final ThreadLocal<ExecutorService> POLLERS = new ThreadLocal<ExecutorService>() {
-        @Override
-        protected ExecutorService initialValue() {
-            return Executors.newSingleThreadExecutor();
-        }
-    };
-
     private static final Duration DEFAULT_POLLING_INTERVAL = Duration.ofSeconds(1);
+    private static final long INLINE_EVALUATION_LIMIT_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
 
     private final Condition<T> condition;
     private final TimeKeeper timeKeeper;
     private final ExecutorService poller;
 
-    private Duration pollingInterval = DEFAULT_POLLING_INTERVAL;
+    private PollingPolicy pollingPolicy = PollingPolicy.fixed(DEFAULT_POLLING_INTERVAL);
+    private RateLimiter rateLimiter;
+    private final Nudges nudges;
     private Set<Class<? extends Exception>> ignoredExceptions = new HashSet<>();
 
     /**
      * Creates a ThreadedPollEvent that evaluates the specified condition, using the system's real
-     * clock and the current thread's associated single thread executor service.
+     * clock and the current thread's associated serial executor on the shared poll scheduler.
      *
-     * @see #POLLERS
+     * @see PollScheduler#serialExecutor()
      */
     public ThreadedPollEvent(Condition<T> condition) {
-        this(condition, TimeKeeper.systemTimeKeeper(), POLLERS.get());
+        this(condition, TimeKeeper.systemTimeKeeper());
     }
 
     /**
      * Creates a ThreadedPollEvent that evaluates the specified condition, using the specified
-     * {@link com.redhat.synq.TimeKeeper}, and the current thread's associated single thread
-     * executor service. Useful for testing with a deterministic, mock TimeKeeper.
+     * {@link com.redhat.synq.TimeKeeper}, and the current thread's associated serial executor on
+     * the shared poll scheduler. Useful for testing with a deterministic, mock TimeKeeper.
      *
-     * @see #POLLERS
+     * @see PollScheduler#serialExecutor()
      */
     public ThreadedPollEvent(Condition<T> condition, TimeKeeper timeKeeper) {
-        this(condition, timeKeeper, POLLERS.get());
+        this(condition, timeKeeper, PollScheduler.shared().serialExecutor());
     }
 
     public ThreadedPollEvent(Condition<T> condition, TimeKeeper timeKeeper,
@@ -89,48 +88,108 @@ public class ThreadedPollEvent<T> implements PollEvent<T> {
         this.condition = condition;
         this.timeKeeper = timeKeeper;
         this.poller = poller;
+        this.nudges = new Nudges();
+    }
+
+    private ThreadedPollEvent(Condition<T> condition, ThreadedPollEvent<T> settings) {
+        this.condition = condition;
+        this.timeKeeper = settings.timeKeeper;
+        this.poller = settings.poller;
+        this.pollingPolicy = settings.pollingPolicy;
+        this.rateLimiter = settings.rateLimiter;
+        this.nudges = settings.nudges;
+        this.ignoredExceptions = settings.ignoredExceptions;
     }
 
     @Override
     public T waitUpTo(Duration duration) {
         boolean met = false;
         T lastResult = null;
-        Instant timeoutTime = timeKeeper.instant().plus(duration);
-        Instant now;
+        long timeoutNanos = TimeKeeper.toNanos(duration);
+        long start = timeKeeper.nanoTime();
+        long delay = 0;
+        int evaluations = 0;
+        boolean inline = poller instanceof SerialExecutor;
+        PollingPolicy policy = pollingPolicy.forCondition(condition.description());
 
         while (!met) {
-            now = timeKeeper.instant();
+            long seen = nudges.generation();
 
-            if (now.isAfter(timeoutTime)
-                    || now.equals(timeoutTime)) {
-                throw new TimeoutException(this, duration);
-            }
+            if (acquire(start, timeoutNanos)) {
+                long evaluationStart = timeKeeper.nanoTime();
 
-            try {
-                met = poller.submit(condition::isMet).get();
-                lastResult = condition.lastResult();
-            } catch (RejectedExecutionException | CancellationException e) {
-                throw new SynqException(e);
-            } catch (ExecutionException e) {
-                throwIfNotIgnored(e.getCause());
-            } catch (InterruptedException e) {
-                throw new SleepInterruptedException(e);
+                try {
+                    met = evaluate(inline);
+                    lastResult = condition.lastResult();
+                } catch (RejectedExecutionException | CancellationException e) {
+                    throw new SynqException(e);
+                } catch (InterruptedException e) {
+                    throw new SleepInterruptedException(e);
+                } finally {
+                    release();
+                }
+
+                // Slow or blocking conditions go to the poller, so that the waiting thread stays
+                // responsive to interrupts while they run.
+                inline &= timeKeeper.nanoTime() - evaluationStart < INLINE_EVALUATION_LIMIT_NANOS;
             }
 
+            long now = timeKeeper.nanoTime();
+
             if (!met) {
-                timeKeeper.sleepFor(pollingInterval);
+                long elapsed = now - start;
+
+                if (elapsed >= timeoutNanos) {
+                    throw new TimeoutException(this, duration);
+                }
+
+                delay = Math.max(0, policy.nextDelayNanos(++evaluations, elapsed, delay));
+
+                // Never sleep past the deadline, so that the last evaluation happens right at it.
+                nudges.sleep(timeKeeper, Math.min(delay, timeoutNanos - elapsed), seen);
             }
         }
 
+        policy.conditionMet(evaluations + 1, timeKeeper.nanoTime() - start);
+
         return lastResult;
     }
 
+    /**
+     * Evaluates the condition through this event's executor as usual, but schedules those
+     * evaluations on the shared {@link PollScheduler} rather than sleeping the calling thread
+     * between them.
+     */
+    @Override
+    public CompletableFuture<T> waitAsync(Duration duration) {
+        return new AsyncPoll<>(this, this::poll, condition::lastResult,
+                pollingPolicy.forCondition(condition.description()),
+                rateLimiter, nudges, timeKeeper, poller, PollScheduler.shared()).start(duration);
+    }
+
     public ThreadedPollEvent<T> pollingEvery(Duration pollingInterval) {
-        this.pollingInterval = pollingInterval;
+        return polling(PollingPolicy.fixed(pollingInterval));
+    }
+
+    @Override
+    public ThreadedPollEvent<T> polling(PollingPolicy pollingPolicy) {
+        this.pollingPolicy = Objects.requireNonNull(pollingPolicy, "pollingPolicy");
+
+        return this;
+    }
+
+    @Override
+    public ThreadedPollEvent<T> limitedBy(RateLimiter rateLimiter) {
+        this.rateLimiter = Objects.requireNonNull(rateLimiter, "rateLimiter");
 
         return this;
     }
 
+    @Override
+    public void nudge() {
+        nudges.nudge();
+    }
+
     public ThreadedPollEvent<T> ignoring(Class<? extends Exception> exception) {
         ignoredExceptions.add(exception);
         return this;
@@ -150,10 +209,99 @@ public class ThreadedPollEvent<T> implements PollEvent<T> {
         return this;
     }
 
+    /**
+     * A copy of this event, polled as configured so far and through the same executor, but
+     * evaluating another condition. Nudging either event nudges waits on both.
+     */
+    ThreadedPollEvent<T> evaluating(Condition<T> condition) {
+        return new ThreadedPollEvent<>(condition, this);
+    }
+
+    Condition<T> condition() {
+        return condition;
+    }
+
+    PollingPolicy pollingPolicy() {
+        return pollingPolicy;
+    }
+
+    RateLimiter rateLimiter() {
+        return rateLimiter;
+    }
+
+    Nudges nudges() {
+        return nudges;
+    }
+
     @Override
     public String toString() {
         return condition.toString() +
-                " (as determined by polling every " + pollingInterval.toString() +")";
+                " (as determined by polling " + pollingPolicy +")";
+    }
+
+    /**
+     * Evaluates the condition once, on the calling thread if allowed and the serial executor is
+     * idle, otherwise on the executor.
+     */
+    private boolean evaluate(boolean inline) throws InterruptedException {
+        if (inline && ((SerialExecutor) poller).tryClaim()) {
+            try {
+                return poll();
+            } finally {
+                ((SerialExecutor) poller).release();
+            }
+        }
+
+        try {
+            return poller.submit(condition::isMet).get();
+        } catch (ExecutionException e) {
+            throwIfNotIgnored(e.getCause());
+            return false;
+        }
+    }
+
+    /**
+     * Evaluates the condition once, never concurrently with anything else run by the executor:
+     * on the calling thread if the serial executor is idle, otherwise on the executor.
+     *
+     * @return True if the condition was met. False if not, or if it threw an ignored exception.
+     */
+    boolean pollSerially() {
+        try {
+            return evaluate(poller instanceof SerialExecutor);
+        } catch (RejectedExecutionException | CancellationException e) {
+            throw new SynqException(e);
+        } catch (InterruptedException e) {
+            throw new SleepInterruptedException(e);
+        }
+    }
+
+    /**
+     * Evaluates the condition once, on the calling thread.
+     *
+     * @return True if the condition was met. False if not, or if it threw an ignored exception.
+     */
+    boolean poll() {
+        try {
+            return condition.isMet();
+        } catch (Exception e) {
+            throwIfNotIgnored(e);
+            return false;
+        }
+    }
+
+    /**
+     * Waits for the rate limiter, if any, for no longer than is left until the deadline.
+     */
+    private boolean acquire(long start, long timeoutNanos) {
+        return rateLimiter == null
+                || rateLimiter.acquire(timeoutNanos - (timeKeeper.nanoTime() - start));
+    }
+
+    private void release() {
+        if (rateLimiter != null) {
+            rateLimiter.release();
+        }
     }
 
     private void throwIfNotIgnored(Throwable t) throws RuntimeException {
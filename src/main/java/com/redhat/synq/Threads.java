@@ -0,0 +1,61 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the threads synq runs its work on.
+ *
+ * <p>This is the Java 8 implementation, which uses platform daemon threads. The multi-release jar
+ * replaces this class on Java 21 and later with one that uses virtual threads instead.
+ */
+final class Threads {
+    private Threads() {
+    }
+
+    /**
+     * Returns a factory for daemon threads named with the prefix followed by a sequence number.
+     */
+    static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Hints that the caller is spinning. {@link Thread#onSpinWait()} does not exist before Java 9,
+     * so this does nothing here.
+     */
+    static void onSpinWait() {
+    }
+
+    /**
+     * Whether threads created by this class are virtual threads.
+     */
+    static boolean virtual() {
+        return false;
+    }
+}
@@ -24,13 +24,33 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 /**
  * A Clock that also encapsulates the passage of time via {@link #sleepFor(java.time.Duration)}.
+ *
+ * <p>Waits measure elapsed time with {@link #nanoTime()} and pause with {@link #parkNanos(long)}.
+ * By default these are derived from {@link #instant()} and {@link #sleepFor(Duration)}, so a
+ * TimeKeeper need only implement those, but the system TimeKeeper overrides them to use a
+ * monotonic clock that is unaffected by changes to the wall clock.
  */
 public abstract class TimeKeeper extends Clock {
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
     public static TimeKeeper systemTimeKeeper() {
-        return new SystemTimeKeeper();
+        return systemTimeKeeper(WaitStrategy.parking());
+    }
+
+    /**
+     * Returns a TimeKeeper using the system's clocks, which sleeps according to the specified
+     * strategy. A spinning strategy sleeps with much finer precision than the operating system's
+     * timers allow, at the cost of occupying a core while it does so.
+     */
+    @Experimental
+    public static TimeKeeper systemTimeKeeper(WaitStrategy waitStrategy) {
+        return new SystemTimeKeeper(Objects.requireNonNull(waitStrategy, "waitStrategy"));
     }
 
     /**
@@ -53,15 +73,97 @@ public abstract class TimeKeeper extends Clock {
         sleepFor(Duration.of(amount, unit));
     }
 
+    /**
+     * Returns the current value of a nanosecond precision time source, in the manner of
+     * {@link System#nanoTime()}. The value is only meaningful when compared to another value
+     * returned by the same TimeKeeper, and differences should be compared rather than the values
+     * themselves, as they may overflow.
+     *
+     * <p>By default, this is derived from {@link #instant()}.
+     */
+    public long nanoTime() {
+        Instant now = instant();
+
+        return now.getEpochSecond() * NANOS_PER_SECOND + now.getNano();
+    }
+
+    /**
+     * Pause execution for some number of nanoseconds. Does nothing if nanos is not positive.
+     *
+     * <p>By default, this delegates to {@link #sleepFor(Duration)}.
+     *
+     * @throws SleepInterruptedException if thread was interrupted while waiting. If you don't want
+     * this to propagate you should catch this exception.
+     */
+    public void parkNanos(long nanos) {
+        if (nanos > 0) {
+            sleepFor(Duration.ofNanos(nanos));
+        }
+    }
+
+    /**
+     * Pauses like {@link #parkNanos(long)}, but returns early once wakeUp returns true. Threads
+     * pausing here may be unparked to have wakeUp checked again.
+     *
+     * <p>By default, wakeUp is only checked before pausing. The system TimeKeeper checks it
+     * throughout.
+     */
+    void parkNanos(long nanos, BooleanSupplier wakeUp) {
+        if (!wakeUp.getAsBoolean()) {
+            parkNanos(nanos);
+        }
+    }
+
+    /**
+     * Converts a duration to nanoseconds, saturating at {@link Long#MAX_VALUE} rather than
+     * overflowing for very long durations.
+     */
+    static long toNanos(Duration duration) {
+        if (duration.isNegative()) {
+            return 0;
+        }
+
+        try {
+            return duration.toNanos();
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
     private static class SystemTimeKeeper extends TimeKeeper {
         private final Clock systemClock = Clock.systemUTC();
+        private final WaitStrategy waitStrategy;
+
+        SystemTimeKeeper(WaitStrategy waitStrategy) {
+            this.waitStrategy = waitStrategy;
+        }
 
         @Override
         public void sleepFor(Duration duration) {
-            try {
-                Thread.sleep(duration.toMillis());
-            } catch (InterruptedException e) {
-                throw new SleepInterruptedException(e);
+            parkNanos(toNanos(duration));
+        }
+
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        /**
+         * Passes the time according to this TimeKeeper's wait strategy. As with
+         * {@link Thread#sleep(long)}, an interrupt clears the thread's interrupted status and ends
+         * the sleep with an exception.
+         */
+        @Override
+        public void parkNanos(long nanos) {
+            if (nanos > 0) {
+                waitStrategy.pause(nanos);
+            }
+        }
+
+        @Override
+        void parkNanos(long nanos, BooleanSupplier wakeUp) {
+            if (nanos > 0) {
+                waitStrategy.await(wakeUp, nanos);
             }
         }
 
@@ -0,0 +1,332 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timing wheel: one thread which owns every timer registered with it, no matter how many
+ * there are. Scheduling and cancelling a timer are constant time, and the thread only ever looks at
+ * the one bucket whose tick has come, so the cost of keeping time stays flat as the number of
+ * outstanding timers grows. The price is resolution; timers fire on the first tick at or after
+ * their deadline.
+ *
+ * <p>Expired timers are handed to an executor to run, so the timer thread is never held up by
+ * them. The timer thread is started on demand and exits after it has had nothing to do for the
+ * keep alive.
+ */
+final class TimingWheel {
+    private static final int WHEEL_SIZE = 512;
+    private static final int MASK = WHEEL_SIZE - 1;
+
+    private final long tickNanos;
+    private final long keepAliveNanos;
+    private final Executor executor;
+    private final ThreadFactory threadFactory;
+
+    private final Bucket[] wheel = new Bucket[WHEEL_SIZE];
+    private final Queue<Timer> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timer> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final long startTime = System.nanoTime();
+
+    private volatile Thread worker;
+    private volatile boolean idle;
+
+    /** Only accessed by the worker. */
+    private long tick;
+
+    TimingWheel(long tick, TimeUnit unit, long keepAliveNanos, Executor executor,
+            ThreadFactory threadFactory) {
+        this.tickNanos = Math.max(1, unit.toNanos(tick));
+        this.keepAliveNanos = keepAliveNanos;
+        this.executor = executor;
+        this.threadFactory = threadFactory;
+
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new Bucket();
+        }
+    }
+
+    /**
+     * Runs the task on the executor once the delay has elapsed, or as soon after as the next tick.
+     * If the executor rejects the task, it is run on the timer thread instead, so tasks should be
+     * short hand offs.
+     */
+    Future<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        long elapsed = System.nanoTime() - startTime;
+        long delayNanos = Math.max(0, unit.toNanos(delay));
+
+        // Saturate, so that delays meaning "forever" do not overflow into the past.
+        long deadline = delayNanos > Long.MAX_VALUE - elapsed
+                ? Long.MAX_VALUE
+                : elapsed + delayNanos;
+        Timer timer = new Timer(task, deadline);
+
+        pending.incrementAndGet();
+        added.add(timer);
+        wakeWorker();
+
+        return timer;
+    }
+
+    /**
+     * The number of timers that have been scheduled but have neither fired nor been cancelled.
+     */
+    long pending() {
+        return pending.get();
+    }
+
+    /**
+     * Whether the timer thread is currently alive.
+     */
+    boolean isRunning() {
+        return running.get();
+    }
+
+    private void wakeWorker() {
+        if (running.compareAndSet(false, true)) {
+            Thread thread = threadFactory.newThread(this::work);
+            worker = thread;
+            thread.start();
+        } else if (idle) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void work() {
+        tick = currentTick();
+
+        while (true) {
+            if (pending.get() == 0 && !awaitWork()) {
+                return;
+            }
+
+            long nextTick = startTime + (tick + 1) * tickNanos;
+            long sleep;
+
+            while ((sleep = nextTick - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, sleep);
+            }
+
+            transferAdded();
+            removeCancelled();
+            wheel[(int) (tick & MASK)].expire(tick);
+            tick++;
+        }
+    }
+
+    /**
+     * Parks the worker until a timer is added or the keep alive passes.
+     *
+     * @return True if there is work to do, false if the worker should exit.
+     */
+    private boolean awaitWork() {
+        idle = true;
+
+        try {
+            long idleUntil = System.nanoTime() + keepAliveNanos;
+            long remaining;
+
+            while (pending.get() == 0 && (remaining = idleUntil - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, remaining);
+            }
+        } finally {
+            idle = false;
+        }
+
+        if (pending.get() == 0) {
+            running.set(false);
+
+            // A timer may have been added after the check but before running was cleared, in
+            // which case its scheduler did not start a new worker; this one must carry on.
+            if (pending.get() == 0 || !running.compareAndSet(false, true)) {
+                return false;
+            }
+        }
+
+        // Nothing was in the wheel while idle, so skip the ticks that passed without work.
+        tick = Math.max(tick, currentTick());
+        return true;
+    }
+
+    private long currentTick() {
+        return (System.nanoTime() - startTime) / tickNanos;
+    }
+
+    private void transferAdded() {
+        Timer timer;
+
+        while ((timer = added.poll()) != null) {
+            if (timer.state.get() == Timer.CANCELLED) {
+                pending.decrementAndGet();
+                continue;
+            }
+
+            long timerTick = Math.max(timer.deadline / tickNanos, tick);
+            timer.rounds = (timerTick - tick) / WHEEL_SIZE;
+            wheel[(int) (timerTick & MASK)].add(timer);
+        }
+    }
+
+    private void removeCancelled() {
+        Timer timer;
+
+        while ((timer = cancelled.poll()) != null) {
+            if (timer.bucket != null) {
+                timer.bucket.remove(timer);
+            }
+        }
+    }
+
+    private void run(Timer timer) {
+        try {
+            executor.execute(timer.task);
+        } catch (RejectedExecutionException e) {
+            timer.task.run();
+        }
+    }
+
+    /**
+     * A doubly linked list of timers, so that a cancelled timer can be unlinked in constant time.
+     * Only accessed by the worker.
+     */
+    private final class Bucket {
+        private Timer head;
+        private Timer tail;
+
+        void add(Timer timer) {
+            timer.bucket = this;
+
+            if (head == null) {
+                head = tail = timer;
+            } else {
+                tail.next = timer;
+                timer.prev = tail;
+                tail = timer;
+            }
+        }
+
+        void remove(Timer timer) {
+            if (timer.prev != null) {
+                timer.prev.next = timer.next;
+            } else {
+                head = timer.next;
+            }
+
+            if (timer.next != null) {
+                timer.next.prev = timer.prev;
+            } else {
+                tail = timer.prev;
+            }
+
+            timer.prev = timer.next = null;
+            timer.bucket = null;
+            pending.decrementAndGet();
+        }
+
+        void expire(long tick) {
+            Timer timer = head;
+
+            while (timer != null) {
+                Timer next = timer.next;
+
+                if (timer.rounds > 0) {
+                    timer.rounds--;
+                } else if (timer.deadline / tickNanos <= tick) {
+                    remove(timer);
+
+                    if (timer.state.compareAndSet(Timer.SCHEDULED, Timer.EXPIRED)) {
+                        run(timer);
+                    }
+                }
+
+                timer = next;
+            }
+        }
+    }
+
+    private final class Timer implements Future<Void> {
+        static final int SCHEDULED = 0;
+        static final int CANCELLED = 1;
+        static final int EXPIRED = 2;
+
+        final FutureTask<Void> task;
+        final long deadline;
+        final AtomicInteger state = new AtomicInteger(SCHEDULED);
+
+        /** The remaining fields are only accessed by the worker. */
+        long rounds;
+        Bucket bucket;
+        Timer prev;
+        Timer next;
+
+        Timer(Runnable task, long deadline) {
+            this.task = new FutureTask<>(task, null);
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (state.compareAndSet(SCHEDULED, CANCELLED)) {
+                task.cancel(false);
+                cancelled.add(this);
+                return true;
+            }
+
+            return task.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return task.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return task.isDone();
+        }
+
+        @Override
+        public Void get() throws InterruptedException, ExecutionException {
+            return task.get();
+        }
+
+        @Override
+        public Void get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException,
+                java.util.concurrent.TimeoutException {
+            return task.get(timeout, unit);
+        }
+    }
+}
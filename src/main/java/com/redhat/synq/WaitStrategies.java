@@ -0,0 +1,136 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The built in {@link WaitStrategy WaitStrategies}.
+ */
+final class WaitStrategies {
+    static final WaitStrategy BUSY_SPIN = new Looping("busy spin") {
+        @Override
+        void idle(int iteration, long remainingNanos) {
+            Threads.onSpinWait();
+        }
+    };
+
+    static final WaitStrategy YIELDING = new Looping("yielding") {
+        @Override
+        void idle(int iteration, long remainingNanos) {
+            Thread.yield();
+        }
+    };
+
+    static final WaitStrategy PARKING = new Looping("parking") {
+        @Override
+        void idle(int iteration, long remainingNanos) {
+            LockSupport.parkNanos(this, remainingNanos);
+        }
+    };
+
+    static final WaitStrategy SLEEPING = new Looping("sleeping") {
+        private final long maxSleepNanos = TimeUnit.MILLISECONDS.toNanos(1);
+
+        @Override
+        void idle(int iteration, long remainingNanos) {
+            long sleep = Math.min(remainingNanos, maxSleepNanos);
+
+            try {
+                Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+            } catch (InterruptedException e) {
+                throw new SleepInterruptedException(e);
+            }
+        }
+    };
+
+    private WaitStrategies() {
+    }
+
+    /**
+     * Checks the condition and the time remaining, idling in between, until one or the other says
+     * to stop.
+     */
+    abstract static class Looping implements WaitStrategy {
+        private final String name;
+
+        Looping(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean await(BooleanSupplier condition, long timeoutNanos) {
+            long start = System.nanoTime();
+
+            for (int iteration = 0; ; iteration++) {
+                if (condition.getAsBoolean()) {
+                    return true;
+                }
+
+                long remaining = timeoutNanos - (System.nanoTime() - start);
+
+                if (remaining <= 0) {
+                    return false;
+                }
+
+                idle(iteration, remaining);
+
+                if (Thread.interrupted()) {
+                    throw new SleepInterruptedException(new InterruptedException());
+                }
+            }
+        }
+
+        /**
+         * Passes some time, up to the remaining time, before the condition is checked again.
+         */
+        abstract void idle(int iteration, long remainingNanos);
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    static final class SpinThenPark extends Looping {
+        private final int spins;
+
+        SpinThenPark(int spins) {
+            super("spin " + spins + " times then park");
+
+            if (spins < 0) {
+                throw new IllegalArgumentException("spins must not be negative, but was " + spins);
+            }
+
+            this.spins = spins;
+        }
+
+        @Override
+        void idle(int iteration, long remainingNanos) {
+            if (iteration < spins) {
+                Threads.onSpinWait();
+            } else {
+                LockSupport.parkNanos(this, remainingNanos);
+            }
+        }
+    }
+}
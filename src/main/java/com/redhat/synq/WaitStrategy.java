@@ -0,0 +1,95 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * How a thread passes the time while it waits for something to happen: by spinning, yielding,
+ * parking, or sleeping. Spinning strategies notice a change within microseconds (or less) but burn
+ * a core doing so; parking and sleeping strategies leave the processor to other work at the cost
+ * of the time the operating system takes to wake the thread back up.
+ *
+ * <p>Strategies are used by {@link EventListener#waitingWith(WaitStrategy)},
+ * {@link MultiEvent#waitingWith(WaitStrategy)}, and
+ * {@link TimeKeeper#systemTimeKeeper(WaitStrategy)}. The default everywhere is {@link #parking()}.
+ */
+@Experimental
+public interface WaitStrategy {
+    /**
+     * Waits until the condition is true or the timeout elapses, whichever is first.
+     *
+     * <p>Whatever makes the condition true should then
+     * {@link java.util.concurrent.locks.LockSupport#unpark(Thread) unpark} the waiting thread, so
+     * implementations which park must re-check the condition as soon as they are unparked.
+     *
+     * @return True if the condition became true, false if the timeout elapsed first.
+     * @throws SleepInterruptedException if the thread is interrupted while waiting. As with
+     * {@link Thread#sleep(long)}, the thread's interrupted status is cleared.
+     */
+    boolean await(BooleanSupplier condition, long timeoutNanos);
+
+    /**
+     * Passes the specified amount of time without waiting on anything in particular.
+     *
+     * @throws SleepInterruptedException if the thread is interrupted while waiting.
+     */
+    default void pause(long nanos) {
+        await(() -> false, nanos);
+    }
+
+    /**
+     * Re-checks continuously, hinting to the processor that it is spinning where it is able to.
+     * Lowest latency; occupies a whole core for the duration of the wait.
+     */
+    static WaitStrategy busySpin() {
+        return WaitStrategies.BUSY_SPIN;
+    }
+
+    /**
+     * Re-checks continuously, yielding the processor to other runnable threads in between.
+     */
+    static WaitStrategy yielding() {
+        return WaitStrategies.YIELDING;
+    }
+
+    /**
+     * Spins for the specified number of checks, and then parks. Short waits are noticed as quickly
+     * as with {@link #busySpin()}, without longer waits occupying a core.
+     */
+    static WaitStrategy spinThenPark(int spins) {
+        return new WaitStrategies.SpinThenPark(spins);
+    }
+
+    /**
+     * Parks until unparked or the timeout elapses. This is the default.
+     */
+    static WaitStrategy parking() {
+        return WaitStrategies.PARKING;
+    }
+
+    /**
+     * Sleeps in increments of at most a millisecond, re-checking in between. Does not respond to
+     * being unparked; this is how waits behaved before wait strategies existed.
+     */
+    static WaitStrategy sleeping() {
+        return WaitStrategies.SLEEPING;
+    }
+}
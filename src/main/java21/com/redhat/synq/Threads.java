@@ -0,0 +1,55 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates the threads synq runs its work on.
+ *
+ * <p>This is the Java 21 implementation, which uses virtual threads, so that branches and pollers
+ * blocked in a wait cost a heap allocated stack rather than a platform thread. Virtual threads are
+ * always daemon threads.
+ */
+final class Threads {
+    private Threads() {
+    }
+
+    /**
+     * Returns a factory for virtual threads named with the prefix followed by a sequence number.
+     */
+    static ThreadFactory daemonThreadFactory(String namePrefix) {
+        return Thread.ofVirtual().name(namePrefix + "-", 1).factory();
+    }
+
+    /**
+     * Hints that the caller is spinning.
+     */
+    static void onSpinWait() {
+        Thread.onSpinWait();
+    }
+
+    /**
+     * Whether threads created by this class are virtual threads.
+     */
+    static boolean virtual() {
+        return true;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.redhat.synq.testing.TestException;
+import com.redhat.synq.testing.rules.LogTestTime;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class BatchPollerTest {
+    @Rule
+    public LogTestTime logTestTime = new LogTestTime();
+
+    private static final Duration TWENTY_MILLIS = Duration.ofMillis(20);
+    private static final Duration ONE_SECOND = Duration.ofSeconds(1);
+
+    private PollScheduler scheduler = new PollScheduler(2, Duration.ofMillis(100));
+    private Map<Integer, String> statuses = new ConcurrentHashMap<>();
+    private AtomicInteger lookUps = new AtomicInteger();
+    private List<Set<Integer>> keysLookedUp = new CopyOnWriteArrayList<>();
+
+    private BatchPoller<Integer, String> jobs = new BatchPoller<>(keys -> {
+        lookUps.incrementAndGet();
+        keysLookedUp.add(keys);
+
+        Map<Integer, String> values = new HashMap<>();
+
+        for (Integer key : keys) {
+            values.put(key, statuses.get(key));
+        }
+
+        return values;
+    }, TWENTY_MILLIS, scheduler);
+
+    @After
+    public void shutdownScheduler() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void shouldLookUpAllAwaitedKeysInOneCallPerTick() throws Exception {
+        List<CompletableFuture<String>> waits = new ArrayList<>();
+
+        for (int job = 0; job < 1000; job++) {
+            waits.add(jobs.expect(job, "DONE"::equals).waitAsync(ONE_SECOND));
+        }
+
+        scheduler.schedule(() -> {
+            for (int job = 0; job < 1000; job++) {
+                statuses.put(job, "DONE");
+            }
+        }, 100, TimeUnit.MILLISECONDS);
+
+        for (CompletableFuture<String> wait : waits) {
+            assertEquals("DONE", wait.get());
+        }
+
+        // About 100 milliseconds of 20 millisecond ticks, rather than thousands of calls.
+        assertTrue("Looked up " + lookUps + " times", lookUps.get() <= 15);
+    }
+
+    @Test
+    public void shouldOnlyLookUpKeysWhichAreStillAwaited() throws Exception {
+        statuses.put(1, "DONE");
+
+        CompletableFuture<String> job2 = jobs.expect(2, "DONE"::equals).waitAsync(ONE_SECOND);
+
+        assertEquals("DONE", jobs.expect(1, "DONE"::equals).waitUpTo(ONE_SECOND));
+
+        statuses.put(2, "DONE");
+        job2.get();
+
+        assertEquals(Collections.singleton(2), keysLookedUp.get(keysLookedUp.size() - 1));
+    }
+
+    @Test
+    public void shouldStopLookingUpOnceNothingIsAwaited() throws Exception {
+        try {
+            jobs.expect(1, "DONE"::equals).waitUpTo(Duration.ofMillis(50));
+        } catch (TimeoutException expected) {
+        }
+
+        Thread.sleep(50);
+        int afterTimeout = lookUps.get();
+        Thread.sleep(100);
+
+        assertEquals(afterTimeout, lookUps.get());
+    }
+
+    @Test(expected = ConditionEvaluationException.class)
+    public void shouldThrowConditionEvaluationExceptionIfLookUpFails() {
+        new BatchPoller<Integer, String>(keys -> { throw new TestException(); }, TWENTY_MILLIS,
+                scheduler)
+                .expect(1, "DONE"::equals)
+                .waitUpTo(ONE_SECOND);
+    }
+}
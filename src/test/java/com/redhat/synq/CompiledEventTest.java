@@ -0,0 +1,234 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import static java.time.temporal.ChronoUnit.MILLIS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.redhat.synq.testing.doubles.NeverMetCondition;
+import com.redhat.synq.testing.rules.LogTestTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+@RunWith(JUnit4.class)
+public class CompiledEventTest {
+    @Rule
+    public LogTestTime logTestTime = new LogTestTime();
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static final Duration TEN_MILLIS = Duration.ofMillis(10);
+
+    @Test
+    public void shouldEvaluateEveryBranchOnTheWaitingThread() {
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        AtomicInteger calls = new AtomicInteger();
+
+        Integer result = Synq.expectCallTo(() -> {
+                    threads.add(Thread.currentThread());
+                    return calls.incrementAndGet();
+                }, i -> i >= 5)
+                .pollingEvery(TEN_MILLIS)
+                .or(Synq.expectCallTo(() -> {
+                    threads.add(Thread.currentThread());
+                    return -1;
+                }, i -> false).pollingEvery(TEN_MILLIS))
+                .failIf(Synq.expectCallTo(() -> {
+                    threads.add(Thread.currentThread());
+                    return false;
+                }, b -> b).pollingEvery(TEN_MILLIS))
+                .compile()
+                .waitUpTo(1000, MILLIS);
+
+        assertEquals(5, (int) result);
+        assertEquals(1, threads.size());
+        assertSame(Thread.currentThread(), threads.iterator().next());
+    }
+
+    @Test
+    public void shouldThrowFailureIfFailEventOccursFirst() {
+        expectedException.expect(MultiEventException.class);
+
+        new NeverMetCondition().asEvent().pollingEvery(TEN_MILLIS)
+                .failIf(Synq.expectCallTo(() -> true, b -> b))
+                .compile()
+                .waitUpTo(1000, MILLIS);
+    }
+
+    @Test
+    public void shouldRunActionsBeforeWaitingInOrder() {
+        AtomicInteger actions = new AtomicInteger();
+
+        Integer result = Synq.expectCallTo(actions::get, i -> i == 2)
+                .pollingEvery(TEN_MILLIS)
+                .after(actions::incrementAndGet)
+                .after(actions::incrementAndGet)
+                .compile()
+                .waitUpTo(1000, MILLIS);
+
+        assertEquals(2, (int) result);
+    }
+
+    @Test
+    public void shouldThrowTimeoutExceptionIfNothingOccursInTime() {
+        expectedException.expect(TimeoutException.class);
+
+        new NeverMetCondition().asEvent().pollingEvery(TEN_MILLIS)
+                .or(new NeverMetCondition().asEvent().pollingEvery(TEN_MILLIS))
+                .compile()
+                .waitUpTo(50, MILLIS);
+    }
+
+    @Test
+    public void shouldReturnNullIfOnlyFailEventsTimeOut() {
+        assertNull(new ForwardingFailEvent<>(new NeverMetCondition().asEvent()
+                .pollingEvery(TEN_MILLIS))
+                .compile()
+                .waitUpTo(50, MILLIS));
+    }
+
+    @Test
+    public void shouldAwaitEventsThatCannotBeCompiledAsynchronously() {
+        EventListener<Object> listener = new EventListener<>();
+        new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+
+            listener.trigger("done");
+        }).start();
+
+        assertEquals("done", listener
+                .or(new NeverMetCondition().asEvent().pollingEvery(TEN_MILLIS))
+                .compile()
+                .waitUpTo(1000, MILLIS));
+    }
+
+    @Test
+    public void shouldWakeAsSoonAsEventsAwaitedAsynchronouslyOccur() {
+        EventListener<Object> listener = new EventListener<>();
+        AtomicInteger parks = new AtomicInteger();
+        TimeKeeper system = TimeKeeper.systemTimeKeeper();
+        TimeKeeper counting = new TimeKeeper() {
+            @Override
+            public void sleepFor(Duration duration) {
+                system.sleepFor(duration);
+            }
+
+            @Override
+            public long nanoTime() {
+                return system.nanoTime();
+            }
+
+            @Override
+            void parkNanos(long nanos, BooleanSupplier wakeUp) {
+                parks.incrementAndGet();
+                system.parkNanos(nanos, wakeUp);
+            }
+
+            @Override
+            public ZoneId getZone() {
+                return system.getZone();
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return system.withZone(zone);
+            }
+
+            @Override
+            public Instant instant() {
+                return system.instant();
+            }
+        };
+
+        new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+
+            listener.trigger("done");
+        }).start();
+
+        assertEquals("done", new CompiledEvent<>(listener
+                .or(new NeverMetCondition().asEvent().pollingEvery(Duration.ofSeconds(5))),
+                counting)
+                .waitUpTo(2000, MILLIS));
+
+        // Checking for the listener every few milliseconds would park dozens of times.
+        assertTrue("Parked " + parks + " times", parks.get() <= 3);
+    }
+
+    @Test
+    public void shouldEvaluateThreadedPollConditionsThroughTheirExecutor() throws Exception {
+        ExecutorService poller = PollScheduler.shared().newSerialExecutor();
+        AtomicBoolean busy = new AtomicBoolean();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(1);
+
+        poller.submit(() -> {
+            busy.set(true);
+            started.countDown();
+            Thread.sleep(100);
+            busy.set(false);
+            return null;
+        });
+
+        started.await();
+
+        AtomicInteger calls = new AtomicInteger();
+
+        new ThreadedPollEvent<>(Condition.matchCallTo(() -> {
+                    overlapped.compareAndSet(false, busy.get());
+                    return calls.incrementAndGet();
+                }, i -> i >= 3), TimeKeeper.systemTimeKeeper(), poller)
+                .pollingEvery(TEN_MILLIS)
+                .or(Synq.expectCallTo(() -> -1, i -> false).pollingEvery(TEN_MILLIS))
+                .compile()
+                .waitUpTo(1000, MILLIS);
+
+        assertFalse(overlapped.get());
+    }
+}
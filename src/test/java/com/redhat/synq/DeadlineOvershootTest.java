@@ -0,0 +1,196 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.redhat.synq.testing.rules.LogTestTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Checks that every kind of event gives up promptly at its deadline, and that a condition met
+ * between the last scheduled poll and the deadline is still noticed.
+ */
+@RunWith(Parameterized.class)
+public class DeadlineOvershootTest {
+    @Rule
+    public LogTestTime logTestTime = new LogTestTime();
+
+    private static final int RUNS = 10;
+
+    private final Waiter waiter;
+    private final boolean polled;
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> waiters() {
+        return Arrays.asList(new Object[][] {
+                polling("default", (condition, interval) ->
+                        new DefaultPollEvent<>(condition).pollingEvery(interval)),
+                polling("threaded", (condition, interval) ->
+                        new ThreadedPollEvent<>(condition).pollingEvery(interval)),
+                polling("or", (condition, interval) ->
+                        new DefaultPollEvent<>(condition).pollingEvery(interval)
+                                .or(new ThreadedPollEvent<>(Condition.match(false, b -> b))
+                                        .pollingEvery(interval))),
+                polling("after", (condition, interval) ->
+                        new DefaultPollEvent<>(condition).pollingEvery(interval)
+                                .after(() -> { })),
+                polling("compiled", (condition, interval) ->
+                        new DefaultPollEvent<>(condition).pollingEvery(interval).compile()),
+                {"async", true, (Waiter) (condition, interval, timeout) -> awaitAsync(
+                        new ThreadedPollEvent<>(condition).pollingEvery(interval), timeout)},
+                // Batches tick on a shared schedule, so there is no final poll at each deadline.
+                neverOccurring("batch", interval -> new BatchPoller<String, Boolean>(
+                        keys -> Collections.singletonMap("key", false), interval)
+                        .expect("key", met -> met)),
+                neverOccurring("port", interval -> new PortEvent("localhost", unusedPort())
+                        .pollingEvery(interval)),
+                neverOccurring("file", interval -> new FileEvent(
+                        Files.createTempDirectory("synq").resolve("never"),
+                        FileEvent.Change.CREATED).fallbackPollingEvery(interval)),
+                neverOccurring("listener", interval -> new EventListener<>()),
+                neverOccurring("future", interval ->
+                        Synq.expectResultOf(new CompletableFuture<>())),
+                neverOccurring("completion stage", interval ->
+                        Synq.expectCompletionOf(new CompletableFuture<>())),
+                neverOccurring("queue", interval ->
+                        Synq.expectElementFrom(new LinkedBlockingQueue<>())),
+                neverOccurring("output", interval -> OutputEvent.of(
+                        new PipedInputStream(new PipedOutputStream()), line -> true)),
+                neverOccurring("fail if", interval -> Synq.failIf(new EventListener<>())),
+                neverOccurring("listener or poll", interval -> new EventListener<Boolean>()
+                        .or(new DefaultPollEvent<>(Condition.match(false, b -> b))
+                                .pollingEvery(interval))),
+                neverOccurring("compiled listener", interval -> new EventListener<>()
+                        .or(new DefaultPollEvent<>(Condition.match(false, b -> b))
+                                .pollingEvery(interval))
+                        .compile()),
+                {"async listener", false, (Waiter) (condition, interval, timeout) ->
+                        awaitAsync(new EventListener<>(), timeout)}});
+    }
+
+    public DeadlineOvershootTest(String name, boolean polled, Waiter waiter) {
+        this.waiter = waiter;
+        this.polled = polled;
+    }
+
+    @Test
+    public void shouldNotOvershootDeadlineByMuchWhenPollingIntervalIsLong() throws Exception {
+        Duration timeout = Duration.ofMillis(100);
+        long[] overshoots = new long[RUNS];
+
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+
+            try {
+                waiter.waitFor(Condition.match(false, b -> b), Duration.ofMillis(90), timeout);
+            } catch (TimeoutException expected) {
+            }
+
+            overshoots[i] = System.nanoTime() - start - timeout.toNanos();
+
+            assertTrue("Gave up " + -overshoots[i] + "ns early", overshoots[i] >= 0);
+        }
+
+        Arrays.sort(overshoots);
+
+        long p50 = overshoots[RUNS / 2];
+
+        // Before sleeps were clamped to the deadline, these waits overshot by about 80ms. Only the
+        // median is checked, so that a slow run on a busy machine does not fail the test.
+        assertTrue("p50: " + p50 + "ns, max: " + overshoots[RUNS - 1] + "ns",
+                p50 < TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void shouldNoticeConditionMetAfterLastScheduledPollButBeforeDeadline()
+            throws Exception {
+        assumeTrue(polled);
+
+        long metAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(170);
+
+        // Polls at 0 and 150 milliseconds, and then once more at the deadline.
+        waiter.waitFor(Condition.matchCallTo(() -> System.nanoTime() - metAt >= 0, met -> met),
+                Duration.ofMillis(150), Duration.ofMillis(200));
+    }
+
+    /**
+     * An event polling a condition, which can be made to occur.
+     */
+    private static Object[] polling(String name,
+            BiFunction<Condition<Boolean>, Duration, Event<?>> event) {
+        return new Object[] {name, true, (Waiter) (condition, interval, timeout) ->
+                event.apply(condition, interval).waitUpTo(timeout)};
+    }
+
+    /**
+     * An event which never occurs, but may still poll something at the interval.
+     */
+    private static Object[] neverOccurring(String name, EventFactory event) {
+        return new Object[] {name, false, (Waiter) (condition, interval, timeout) ->
+                event.create(interval).waitUpTo(timeout)};
+    }
+
+    private static void awaitAsync(Event<?> event, Duration timeout) throws Exception {
+        try {
+            event.waitAsync(timeout).get();
+        } catch (ExecutionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    private static int unusedPort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @FunctionalInterface
+    interface Waiter {
+        void waitFor(Condition<Boolean> condition, Duration interval, Duration timeout)
+                throws Exception;
+    }
+
+    @FunctionalInterface
+    interface EventFactory {
+        Event<?> create(Duration interval) throws Exception;
+    }
+}
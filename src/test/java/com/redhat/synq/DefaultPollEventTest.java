@@ -37,6 +37,7 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import java.time.Duration;
+import java.time.Instant;
 
 @RunWith(JUnit4.class)
 public class DefaultPollEventTest {
@@ -137,4 +138,17 @@ public class DefaultPollEventTest {
                 .ignoring(TestException.class)
                 .waitUpTo(100, MILLIS);
     }
+
+    @Test
+    public void shouldEvaluateOnceMoreRightAtTheDeadline() {
+        Instant start = timeKeeper.instant();
+        Condition<Object> condition = new FakeCondition<>(Duration.ofSeconds(9), timeKeeper);
+
+        // Polls at 0, 4 and 8 seconds; the next poll would be at 12, past the deadline.
+        new DefaultPollEvent<>(condition, timeKeeper)
+                .pollingEvery(Duration.ofSeconds(4))
+                .waitUpTo(Duration.ofSeconds(10));
+
+        assertEquals(Duration.ofSeconds(10), Duration.between(start, timeKeeper.instant()));
+    }
 }
@@ -0,0 +1,208 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.redhat.synq.FileEvent.Change;
+import com.redhat.synq.testing.rules.LogTestTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(JUnit4.class)
+public class FileEventTest {
+    @Rule
+    public LogTestTime logTestTime = new LogTestTime();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final Duration TEN_SECONDS = Duration.ofSeconds(10);
+    private static final Duration FIVE_SECONDS = Duration.ofSeconds(5);
+
+    @Test
+    public void shouldOccurWhenFileIsCreated() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("created");
+
+        later(() -> Files.createFile(file));
+
+        assertEquals(file, awaitPromptly(new FileEvent(file, Change.CREATED)));
+    }
+
+    @Test
+    public void shouldOccurWhenFileIsDeleted() throws Exception {
+        Path file = folder.newFile("deleted").toPath();
+
+        later(() -> Files.delete(file));
+
+        awaitPromptly(new FileEvent(file, Change.DELETED));
+    }
+
+    @Test
+    public void shouldOccurWhenFileIsModified() throws Exception {
+        Path file = folder.newFile("modified").toPath();
+        FileEvent modified = new FileEvent(file, Change.MODIFIED);
+
+        later(() -> Files.write(file, "modified".getBytes()));
+
+        awaitPromptly(modified);
+    }
+
+    @Test
+    public void shouldWaitForNextModificationWhenWaitingAgain() throws Exception {
+        Path file = folder.newFile("modified twice").toPath();
+        FileEvent modified = new FileEvent(file, Change.MODIFIED);
+
+        Files.write(file, "modified".getBytes());
+        awaitPromptly(modified);
+
+        try {
+            modified.waitUpTo(Duration.ofMillis(100));
+            fail("Expected the first modification to have been seen already.");
+        } catch (TimeoutException expected) {
+        }
+
+        later(() -> Files.write(file, "modified again".getBytes()));
+
+        awaitPromptly(modified);
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void shouldNotOccurIfFileIsUnmodified() throws Exception {
+        Path file = folder.newFile("unmodified").toPath();
+
+        new FileEvent(file, Change.MODIFIED).waitUpTo(Duration.ofMillis(100));
+    }
+
+    @Test
+    public void shouldOccurImmediatelyIfFileAlreadyExists() throws Exception {
+        Path file = folder.newFile("existing").toPath();
+
+        awaitPromptly(new FileEvent(file, Change.CREATED));
+    }
+
+    @Test
+    public void shouldFallBackToPollingWhereDirectoryCannotBeWatched() throws Exception {
+        Path directory = folder.getRoot().toPath().resolve("missing");
+        Path file = directory.resolve("file");
+
+        later(() -> Files.createFile(Files.createDirectory(directory).resolve("file")));
+
+        new FileEvent(file, Change.CREATED)
+                .fallbackPollingEvery(Duration.ofMillis(20))
+                .waitUpTo(FIVE_SECONDS);
+    }
+
+    @Test
+    public void shouldOnlyPollWhileDirectoryCannotBeWatched() throws Exception {
+        PollScheduler scheduler = new PollScheduler(1);
+        Path directory = folder.getRoot().toPath().resolve("later");
+        Path file = directory.resolve("file");
+        List<CompletableFuture<Path>> waits = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < 10; i++) {
+                waits.add(new FileEvent(file, Change.CREATED, FileWatcher.shared(), scheduler)
+                        .fallbackPollingEvery(Duration.ofMillis(20))
+                        .waitAsync(TEN_SECONDS));
+            }
+
+            assertEquals(10, scheduler.getScheduledCount());
+
+            Files.createDirectory(directory);
+
+            // Each wait starts watching the directory on its next poll, and stops polling.
+            Synq.expect(() -> scheduler.getScheduledCount() == 0).waitUpTo(FIVE_SECONDS);
+
+            Files.createFile(file);
+
+            for (CompletableFuture<Path> wait : waits) {
+                assertEquals(file, wait.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldCompleteAsyncWaitWhenFileIsCreated() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("async");
+
+        later(() -> Files.createFile(file));
+
+        assertEquals(file, new FileEvent(file, Change.CREATED)
+                .fallbackPollingEvery(TEN_SECONDS)
+                .waitAsync(FIVE_SECONDS)
+                .get());
+    }
+
+    @Test
+    public void shouldStopWatchingDirectoryOnceNoLongerWaiting() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("watched");
+        int watched = FileWatcher.shared().watchedDirectories();
+
+        new FileEvent(file, Change.CREATED).waitAsync(FIVE_SECONDS).cancel(false);
+
+        assertEquals(watched, FileWatcher.shared().watchedDirectories());
+    }
+
+    private Path awaitPromptly(FileEvent event) {
+        long start = System.nanoTime();
+
+        // With a long fallback interval, only a change notification wakes the wait in time.
+        Path result = event.fallbackPollingEvery(TEN_SECONDS).waitUpTo(FIVE_SECONDS);
+
+        long elapsed = System.nanoTime() - start;
+
+        assertTrue("Took " + elapsed + "ns", elapsed < TimeUnit.SECONDS.toNanos(2));
+
+        return result;
+    }
+
+    private static void later(FileAction action) {
+        PollScheduler.shared().schedule(() -> {
+            try {
+                action.run();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+    }
+
+    @FunctionalInterface
+    interface FileAction {
+        void run() throws IOException;
+    }
+}
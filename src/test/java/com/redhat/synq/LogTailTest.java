@@ -0,0 +1,200 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.redhat.synq.testing.rules.LogTestTime;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(JUnit4.class)
+public class LogTailTest {
+    @Rule
+    public LogTestTime logTestTime = new LogTestTime();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path log;
+    private LogTail tail;
+
+    @Before
+    public void createLog() throws IOException {
+        log = folder.newFile("test.log").toPath();
+        append("Starting\n");
+    }
+
+    @After
+    public void closeTail() {
+        if (tail != null) {
+            tail.close();
+        }
+    }
+
+    @Test
+    public void shouldOnlyMatchLinesAppendedAfterTailingFromEnd() throws Exception {
+        tail = LogTail.fromEnd(log);
+        Condition<String> starting = tail.contains("Starting");
+        Condition<String> started = tail.contains("Started in \\d+ms");
+
+        append("Started in 42ms\n");
+
+        assertFalse(starting.isMet());
+        assertTrue(started.isMet());
+        assertEquals("Started in 42ms", started.lastResult());
+    }
+
+    @Test
+    public void shouldMatchExistingLinesWhenTailingFromStart() {
+        tail = LogTail.fromStart(log);
+
+        assertTrue(tail.contains("Starting").isMet());
+    }
+
+    @Test
+    public void shouldNotMatchLineUntilItIsTerminated() throws Exception {
+        tail = LogTail.fromEnd(log);
+        Condition<String> started = tail.contains("Started$");
+
+        append("Sta");
+        assertFalse(started.isMet());
+
+        append("rted");
+        assertFalse(started.isMet());
+
+        append("\r\n");
+        assertTrue(started.isMet());
+    }
+
+    @Test
+    public void shouldReadFromStartAgainWhenTruncated() throws Exception {
+        tail = LogTail.fromEnd(log);
+        Condition<String> ready = tail.contains("Ready");
+
+        append("Loading a lot of things\n");
+        assertFalse(ready.isMet());
+
+        Files.write(log, "Ready\n".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(ready.isMet());
+    }
+
+    @Test
+    public void shouldFinishOldFileAndFollowNewFileWhenRotated() throws Exception {
+        tail = LogTail.fromEnd(log);
+        Condition<String> lastOld = tail.contains("Rotating");
+        Condition<String> firstNew = tail.contains("Rotated");
+
+        assertFalse(lastOld.isMet());
+
+        append("Rotating\n");
+        Files.move(log, log.resolveSibling("test.log.1"));
+        append("Rotated\n");
+
+        assertTrue(firstNew.isMet());
+        assertTrue(lastOld.isMet());
+    }
+
+    @Test
+    public void shouldOfferEachLineToEveryConditionSharingTheTail() throws Exception {
+        tail = LogTail.fromEnd(log);
+        Condition<String> first = tail.contains("Ready");
+        Condition<String> second = tail.contains("Re.dy");
+
+        append("Ready\n");
+
+        assertTrue(first.isMet());
+        assertTrue(second.isMet());
+
+        append("Stopping\n");
+
+        assertTrue(second.isMet());
+        assertEquals("Ready", second.lastResult());
+    }
+
+    @Test
+    public void shouldWaitForLineToBeAppended() throws Exception {
+        tail = LogTail.fromEnd(log);
+
+        PollScheduler.shared().schedule(() -> {
+            try {
+                append("Ready\n");
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+
+        assertEquals("Ready", tail.contains("Ready").asEvent()
+                .pollingEvery(Duration.ofMillis(10))
+                .waitUpTo(Duration.ofSeconds(1)));
+    }
+
+    @Test
+    public void shouldWaitForFileToBeCreated() throws Exception {
+        tail = LogTail.fromEnd(folder.getRoot().toPath().resolve("missing.log"));
+        Condition<String> ready = tail.contains("Ready");
+
+        assertFalse(ready.isMet());
+
+        Files.write(tail.path(), "Ready\n".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(ready.isMet());
+    }
+
+    @Test
+    public void shouldNotSplitCharactersWhenSplittingLongLines() throws Exception {
+        tail = LogTail.fromEnd(log);
+        Condition<String> mangled = tail.contains("\uFFFD");
+        Condition<String> rest = tail.contains("^\u00e9+$");
+        StringBuilder line = new StringBuilder("x");
+
+        // Two bytes each, and offset by one, so neither reads nor splits end between characters.
+        for (int i = 0; i < 1_100_000; i++) {
+            line.append('\u00e9');
+        }
+
+        append(line.append('\n').toString());
+
+        assertTrue(rest.isMet());
+        assertFalse(mangled.isMet());
+    }
+
+    private void append(String text) throws IOException {
+        Files.write(log, text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+}
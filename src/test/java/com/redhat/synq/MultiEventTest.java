@@ -22,6 +22,8 @@ package com.redhat.synq;
 import static java.time.temporal.ChronoUnit.MILLIS;
 import static junit.framework.Assert.fail;
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.mock;
@@ -40,6 +42,13 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.IntSupplier;
 
 @RunWith(JUnit4.class)
@@ -182,4 +191,144 @@ public class MultiEventTest {
 
         verifyZeroInteractions(mockObject);
     }
+
+    @Test
+    public void shouldReuseABoundedNumberOfThreadsAcrossWaitsOnNestedCompositions() {
+        int branches = 5;
+
+        // Warm up the pool
+        waitOnComposition(branches);
+
+        int threadsBefore = BranchExecutor.threadsCreated();
+
+        for (int i = 0; i < 20; i++) {
+            waitOnComposition(branches);
+        }
+
+        int threadsCreated = BranchExecutor.threadsCreated() - threadsBefore;
+
+        assertTrue("Created " + threadsCreated + " threads for 20 waits on " + branches
+                + " branches", threadsCreated <= branches);
+    }
+
+    private void waitOnComposition(int branches) {
+        Event<Object> event = new FakeEvent<>(TEN_MILLIS);
+
+        for (int i = 1; i < branches; i++) {
+            event = event.or(new FakeEvent<>(ONE_HUNDRED_MILLIS));
+        }
+
+        event.waitUpTo(1000, MILLIS);
+    }
+
+    @Test
+    public void shouldFlattenChainedCompositionsIntoOneEvent() {
+        Event<Object> event1 = new FakeEvent<>(TEN_MILLIS);
+        Event<Object> event2 = new FakeEvent<>(TEN_MILLIS);
+        Event<Object> event3 = new FakeEvent<>(TEN_MILLIS);
+        Event<Object> event4 = new FakeEvent<>(TEN_MILLIS);
+
+        MultiEvent<Object> multiEvent = (MultiEvent<Object>) event1.or(event2).or(event3)
+                .failIf(event4);
+
+        assertEquals(4, multiEvent.events().size());
+        assertSame(event1, multiEvent.events().get(0));
+        assertSame(event3, multiEvent.events().get(2));
+    }
+
+    @Test
+    public void shouldReturnResultOfFirstOfManyEventsThatOccurs() {
+        Object result = Synq.anyOf(
+                new FakeEvent<>(() -> "event1", ONE_HUNDRED_MILLIS),
+                new NeverOccurringEvent().describedAs("a test event"),
+                new FakeEvent<>(() -> "event3", TEN_MILLIS),
+                new FakeEvent<>(() -> "event4", FIFTY_MILLIS))
+                .waitUpTo(200, MILLIS);
+
+        assertEquals("event3", result);
+    }
+
+    @Test
+    public void shouldBeAbleToWaitMoreThanOnce() {
+        Event<String> event = new MultiEvent<>(new FakeEvent<>(() -> "event1", TEN_MILLIS),
+                new FakeEvent<>(() -> "event2", ONE_HUNDRED_MILLIS));
+
+        assertEquals("event1", event.waitUpTo(200, MILLIS));
+        assertEquals("event1", event.waitUpTo(200, MILLIS));
+    }
+
+    @Test
+    public void shouldCallCallableSharedByBranchesAboutOncePerPoll() {
+        AtomicInteger calls = new AtomicInteger();
+        long start = System.nanoTime();
+        Callable<Boolean> done = () -> {
+            calls.incrementAndGet();
+            return System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(300);
+        };
+
+        Synq.expectCallTo(done, d -> d).pollingEvery(FIFTY_MILLIS)
+                .failIfCallTo(done, d -> d == null).pollingEvery(FIFTY_MILLIS)
+                .waitUpTo(1, ChronoUnit.SECONDS);
+
+        // Each branch polls about 7 times, so without coalescing there would be about 14 calls.
+        assertTrue("Called " + calls + " times", calls.get() <= 9);
+    }
+
+    @Test
+    public void shouldExamineTheSameResultsInBranchesWhichShareACallable() {
+        AtomicInteger counter = new AtomicInteger();
+        Callable<Integer> count = counter::incrementAndGet;
+        List<Integer> seenByExpect = new CopyOnWriteArrayList<>();
+        List<Integer> seenByFailIf = new CopyOnWriteArrayList<>();
+
+        Synq.expectCallTo(count, i -> seenByExpect.add(i) && i >= 4).pollingEvery(FIFTY_MILLIS)
+                .failIfCallTo(count, i -> !seenByFailIf.add(i)).pollingEvery(FIFTY_MILLIS)
+                .waitUpTo(1, ChronoUnit.SECONDS);
+
+        assertTrue(seenByFailIf.size() >= 3);
+        assertTrue(seenByExpect + " vs " + seenByFailIf, seenByExpect.containsAll(seenByFailIf));
+    }
+
+    @Test
+    public void shouldStopSharingCallsOnceWaitIsOver() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Callable<Integer> count = calls::incrementAndGet;
+        Condition<Integer> counted = Condition.matchCallTo(count, i -> i >= 2);
+
+        Synq.expect(counted).pollingEvery(TEN_MILLIS)
+                .or(Condition.matchCallTo(count, i -> false))
+                .waitUpTo(1, ChronoUnit.SECONDS);
+
+        int before = calls.get();
+
+        // Straight after the wait, a value shared during it would still be fresh enough to reuse.
+        counted.isMet();
+        counted.isMet();
+
+        assertEquals(before + 2, calls.get());
+    }
+
+    @Test
+    public void shouldNotShareCallsWithEvaluationsOutsideTheWait() throws Exception {
+        Callable<Thread> caller = Thread::currentThread;
+        Condition<Thread> calledBy = Condition.matchCallTo(caller, t -> false);
+
+        // The other branch makes the calls, which would be fresh and unseen by calledBy if the
+        // wait shared them with it here.
+        CompletableFuture<Thread> wait = Synq.expect(calledBy).pollingEvery(Duration.ofSeconds(1))
+                .or(Condition.matchCallTo(caller, t -> false)).pollingEvery(TEN_MILLIS)
+                .waitAsync(Duration.ofSeconds(1));
+
+        try {
+            for (int i = 0; i < 20; i++) {
+                calledBy.isMet();
+
+                assertSame(Thread.currentThread(), calledBy.lastResult());
+
+                Thread.sleep(5);
+            }
+        } finally {
+            wait.cancel(true);
+        }
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import static org.junit.Assert.assertTrue;
+
+import com.redhat.synq.testing.rules.LogTestTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Checks that nudging every kind of poll event cuts its current sleep short.
+ */
+@RunWith(Parameterized.class)
+public class NudgeTest {
+    @Rule
+    public LogTestTime logTestTime = new LogTestTime();
+
+    private static final Duration TEN_SECONDS = Duration.ofSeconds(10);
+
+    private final Function<Condition<Boolean>, PollEvent<Boolean>> events;
+    private final Waiter waiter;
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> events() {
+        Waiter waitUpTo = (event, timeout) -> event.waitUpTo(timeout);
+
+        return Arrays.asList(new Object[][] {
+                {"default", (Function<Condition<Boolean>, PollEvent<Boolean>>) condition ->
+                        new DefaultPollEvent<>(condition), waitUpTo},
+                {"threaded", (Function<Condition<Boolean>, PollEvent<Boolean>>) condition ->
+                        new ThreadedPollEvent<>(condition), waitUpTo},
+                {"or", (Function<Condition<Boolean>, PollEvent<Boolean>>) condition ->
+                        new DefaultPollEvent<>(Condition.match(false, b -> b)).or(condition),
+                        waitUpTo},
+                {"after", (Function<Condition<Boolean>, PollEvent<Boolean>>) condition ->
+                        new DefaultPollEvent<>(condition).after(() -> { }), waitUpTo},
+                {"compiled", (Function<Condition<Boolean>, PollEvent<Boolean>>) condition ->
+                        new DefaultPollEvent<>(condition),
+                        (Waiter) (event, timeout) -> event.compile().waitUpTo(timeout)},
+                {"async", (Function<Condition<Boolean>, PollEvent<Boolean>>) condition ->
+                        new ThreadedPollEvent<>(condition),
+                        (Waiter) (event, timeout) -> event.waitAsync(timeout).get()}});
+    }
+
+    public NudgeTest(String name, Function<Condition<Boolean>, PollEvent<Boolean>> events,
+            Waiter waiter) {
+        this.events = events;
+        this.waiter = waiter;
+    }
+
+    @Test
+    public void shouldEvaluateImmediatelyWhenNudged() throws Exception {
+        AtomicBoolean met = new AtomicBoolean();
+        PollEvent<Boolean> event = events.apply(Condition.matchCallTo(met::get, b -> b))
+                .pollingEvery(TEN_SECONDS);
+
+        PollScheduler.shared().schedule(() -> {
+            met.set(true);
+            event.nudge();
+        }, 50, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+
+        waiter.waitFor(event, Duration.ofSeconds(5));
+
+        long elapsed = System.nanoTime() - start;
+
+        assertTrue("Took " + elapsed + "ns", elapsed < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void shouldKeepPollingAsNormalAfterANudge() throws Exception {
+        AtomicBoolean met = new AtomicBoolean();
+        PollEvent<Boolean> event = events.apply(Condition.matchCallTo(met::get, b -> b))
+                .pollingEvery(Duration.ofMillis(20));
+
+        event.nudge();
+
+        PollScheduler.shared().schedule(() -> met.set(true), 100, TimeUnit.MILLISECONDS);
+
+        waiter.waitFor(event, Duration.ofSeconds(1));
+    }
+
+    @FunctionalInterface
+    interface Waiter {
+        void waitFor(PollEvent<Boolean> event, Duration timeout) throws Exception;
+    }
+}
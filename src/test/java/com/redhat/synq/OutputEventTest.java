@@ -0,0 +1,169 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.redhat.synq.testing.rules.LogTestTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(JUnit4.class)
+public class OutputEventTest {
+    @Rule
+    public LogTestTime logTestTime = new LogTestTime();
+
+    private static final Duration TEN_SECONDS = Duration.ofSeconds(10);
+
+    @Test
+    public void shouldOccurWithFirstMatchingLine() throws Exception {
+        PipedOutputStream output = new PipedOutputStream();
+        OutputEvent event = OutputEvent.of(new PipedInputStream(output),
+                line -> line.startsWith("Started"));
+
+        PollScheduler.shared().schedule(() -> print(output, "Starting\nStarted on port 8080\n"),
+                50, TimeUnit.MILLISECONDS);
+
+        assertEquals("Started on port 8080", event.waitUpTo(Duration.ofSeconds(1)));
+    }
+
+    @Test
+    public void shouldMatchLinesOfProcessOutput() throws Exception {
+        Process process = shell("echo Starting; echo 'Started on port 8080' >&2; sleep 10");
+
+        try {
+            assertEquals("Started on port 8080",
+                    Synq.expectOutput(process, containsString("port")).waitUpTo(TEN_SECONDS));
+        } finally {
+            process.destroy();
+        }
+    }
+
+    @Test
+    public void shouldFailAsSoonAsOutputEndsWithoutAMatch() {
+        OutputEvent event = OutputEvent.of(
+                new ByteArrayInputStream("Starting\nFailed to bind\n".getBytes()),
+                containsString("Started"));
+
+        assertFailsPromptly(event, "Output ended", "Failed to bind");
+    }
+
+    @Test
+    public void shouldFailAsSoonAsProcessExitsWithoutAMatch() throws Exception {
+        Process process = shell("echo 'Failed to bind'; exit 3");
+
+        assertFailsPromptly(Synq.expectOutput(process, containsString("Started")),
+                "code 3", "Failed to bind");
+    }
+
+    @Test
+    public void shouldFailWhenProcessExitsEvenIfItsOutputIsStillOpen() throws Exception {
+        // The backgrounded sleep inherits, and holds open, the shell's output.
+        Process process = shell("sleep 10 & echo 'Failed to bind'; exit 3");
+
+        assertFailsPromptly(Synq.expectOutput(process, containsString("Started")),
+                "code 3", "Failed to bind");
+    }
+
+    @Test
+    public void shouldTestRemainingOutputBeforeFailingOnExit() throws Exception {
+        Process process = shell("for i in $(seq 1 20); do echo Line $i; done; echo Started");
+
+        // Slow enough that the process exits long before its output has all been tested.
+        assertEquals("Started", Synq.expectOutput(process, line -> {
+            Thread.sleep(20);
+            return line.startsWith("Started");
+        }).waitUpTo(TEN_SECONDS));
+    }
+
+    @Test
+    public void shouldOnlyDescribeMostRecentLines() throws Exception {
+        PipedOutputStream output = new PipedOutputStream();
+        OutputEvent event = OutputEvent.of(new PipedInputStream(output),
+                containsString("Started"));
+        StringBuilder lines = new StringBuilder();
+
+        for (int i = 0; i < 100; i++) {
+            lines.append("Line ").append(i).append("\n");
+        }
+
+        print(output, lines.toString());
+
+        try {
+            event.waitUpTo(Duration.ofMillis(200));
+            fail("Expected timeout");
+        } catch (TimeoutException e) {
+            assertThat(e.getMessage(), containsString("Line 99"));
+            assertThat(e.getMessage(), not(containsString("Line 79")));
+        }
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void shouldRejectNullStreamUpFront() {
+        OutputEvent.of((InputStream) null, containsString("Started"));
+    }
+
+    private static void assertFailsPromptly(Event<String> event, String... messages) {
+        long start = System.nanoTime();
+
+        try {
+            event.waitUpTo(TEN_SECONDS);
+            fail("Expected wait to fail");
+        } catch (TimeoutException e) {
+            throw e;
+        } catch (SynqException e) {
+            for (String message : messages) {
+                assertThat(e.getMessage(), containsString(message));
+            }
+        }
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+    }
+
+    private static Process shell(String script) throws IOException {
+        return new ProcessBuilder("sh", "-c", script).start();
+    }
+
+    private static void print(PipedOutputStream output, String text) {
+        try {
+            output.write(text.getBytes(Charset.defaultCharset()));
+            output.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import static java.time.temporal.ChronoUnit.MILLIS;
+import static java.time.temporal.ChronoUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.redhat.synq.testing.rules.LogTestTime;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class PollSchedulerTest {
+    @Rule
+    public LogTestTime logTestTime = new LogTestTime();
+
+    private PollScheduler scheduler = new PollScheduler(4, Duration.ofMillis(100));
+
+    @After
+    public void shutdownScheduler() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void shouldNeverRunTasksOfASerialExecutorSimultaneously() throws Exception {
+        ExecutorService serial = scheduler.newSerialExecutor();
+        AtomicBoolean running = new AtomicBoolean();
+        AtomicInteger overlaps = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            futures.add(serial.submit(() -> {
+                if (!running.compareAndSet(false, true)) {
+                    overlaps.incrementAndGet();
+                }
+
+                Thread.yield();
+                running.set(false);
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        assertEquals(0, overlaps.get());
+    }
+
+    @Test
+    public void shouldRunWorkOnDaemonThreads() throws Exception {
+        AtomicBoolean daemon = new AtomicBoolean();
+
+        scheduler.newSerialExecutor()
+                .submit(() -> daemon.set(Thread.currentThread().isDaemon()))
+                .get();
+
+        assertTrue(daemon.get());
+    }
+
+    @Test
+    public void shouldNotGrowBeyondConfiguredSizeWhenManyThreadsPoll() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            Thread thread = new Thread(() -> new ThreadedPollEvent<>(
+                    Condition.match("synq", s -> true), TimeKeeper.systemTimeKeeper(),
+                    scheduler.serialExecutor())
+                    .waitUpTo(1000, MILLIS));
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(scheduler.getPoolSize() <= 4);
+    }
+
+    @Test
+    public void shouldReuseSerialExecutorForTheSameThread() {
+        assertSame(scheduler.serialExecutor(), scheduler.serialExecutor());
+    }
+
+    @Test
+    public void shouldLetIdleWorkersExit() throws Exception {
+        scheduler.newSerialExecutor().submit(() -> { }).get();
+
+        Thread.sleep(500);
+
+        assertEquals(0, scheduler.getPoolSize());
+        assertFalse(scheduler.isShutdown());
+    }
+
+    @Test
+    public void shouldRunScheduledTasksNoSoonerThanTheirDelay() throws Exception {
+        CountDownLatch ran = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        scheduler.schedule(ran::countDown, 50, TimeUnit.MILLISECONDS);
+
+        assertTrue(ran.await(1, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void shouldNotRunCancelledScheduledTasks() throws Exception {
+        AtomicBoolean ran = new AtomicBoolean();
+
+        assertTrue(scheduler.schedule(() -> ran.set(true), 20, TimeUnit.MILLISECONDS)
+                .cancel(false));
+
+        Thread.sleep(100);
+
+        assertFalse(ran.get());
+        assertEquals(0, scheduler.getScheduledCount());
+    }
+
+    @Test
+    public void shouldNotRunTasksScheduledForeverAway() throws Exception {
+        AtomicBoolean ran = new AtomicBoolean();
+
+        Future<?> forever = scheduler.schedule(() -> ran.set(true), Long.MAX_VALUE,
+                TimeUnit.NANOSECONDS);
+
+        Thread.sleep(100);
+
+        assertFalse(ran.get());
+        assertTrue(forever.cancel(false));
+    }
+
+    @Test
+    public void shouldKeepManyScheduledTasksWithoutAdditionalThreads() throws Exception {
+        int tasks = 100_000;
+        CountDownLatch ran = new CountDownLatch(tasks / 2);
+        List<Future<?>> futures = new ArrayList<>(tasks);
+
+        for (int i = 0; i < tasks; i++) {
+            futures.add(scheduler.schedule(ran::countDown, 100 + i % 200, TimeUnit.MILLISECONDS));
+        }
+
+        for (int i = 0; i < tasks; i += 2) {
+            futures.get(i).cancel(false);
+        }
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertTrue(scheduler.getPoolSize() <= 4);
+
+        Synq.expectCallTo(scheduler::getScheduledCount, count -> count == 0)
+                .pollingEvery(Duration.ofMillis(10))
+                .waitUpTo(1, SECONDS);
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import static java.time.temporal.ChronoUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.redhat.synq.testing.doubles.FakeTimeKeeper;
+import com.redhat.synq.testing.rules.LogTestTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class PollingPolicyTest {
+    @Rule
+    public LogTestTime logTestTime = new LogTestTime();
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void shouldDescribeFixedPolicyAsPollingEvery() {
+        assertThat(new DefaultPollEvent<>(Condition.match("synq", s -> true))
+                .pollingEvery(Duration.ofMillis(250))
+                .toString(), containsString("polling every PT0.25S"));
+    }
+
+    @Test
+    public void shouldBackOffExponentiallyUpToMax() {
+        PollingPolicy policy = PollingPolicy.exponential(
+                Duration.ofMillis(100), 2, Duration.ofMillis(300));
+
+        long first = policy.nextDelayNanos(1, 0, 0);
+        long second = policy.nextDelayNanos(2, first, first);
+        long third = policy.nextDelayNanos(3, first + second, second);
+
+        assertEquals(100 * MILLI, first);
+        assertEquals(200 * MILLI, second);
+        assertEquals(300 * MILLI, third);
+    }
+
+    @Test
+    public void shouldKeepDecorrelatedJitterWithinBaseAndMax() {
+        PollingPolicy policy = PollingPolicy.decorrelatedJitter(
+                Duration.ofMillis(10), Duration.ofMillis(500));
+        long delay = 0;
+
+        for (int i = 1; i <= 1000; i++) {
+            delay = policy.nextDelayNanos(i, 0, delay);
+
+            assertTrue(delay >= 10 * MILLI);
+            assertTrue(delay <= 500 * MILLI);
+        }
+    }
+
+    @Test
+    public void shouldPollFastThenSlow() {
+        PollingPolicy policy = PollingPolicy.fastThenSlow(
+                Duration.ofMillis(10), Duration.ofSeconds(1), Duration.ofSeconds(5));
+
+        assertEquals(10 * MILLI, policy.nextDelayNanos(1, 0, 0));
+        assertEquals(5000 * MILLI, policy.nextDelayNanos(50, 1000 * MILLI, 10 * MILLI));
+    }
+
+    @Test
+    public void shouldJitterWithinFraction() {
+        PollingPolicy policy = PollingPolicy.fixed(Duration.ofMillis(100)).withJitter(0.2);
+
+        for (int i = 1; i <= 1000; i++) {
+            long delay = policy.nextDelayNanos(i, 0, 0);
+
+            assertTrue(delay >= 80 * MILLI);
+            assertTrue(delay <= 120 * MILLI);
+        }
+    }
+
+    @Test
+    public void shouldWaitAccordingToPolicyBetweenEvaluations() {
+        FakeTimeKeeper timeKeeper = new FakeTimeKeeper();
+        AtomicInteger evaluations = new AtomicInteger();
+
+        try {
+            new DefaultPollEvent<>(Condition.matchCallTo(evaluations::incrementAndGet, i -> false),
+                    timeKeeper)
+                    .polling(PollingPolicy.exponential(
+                            Duration.ofMillis(100), 2, Duration.ofSeconds(1)))
+                    .waitUpTo(3, SECONDS);
+            fail("Expected TimeoutException");
+        } catch (TimeoutException expected) {
+        }
+
+        // Evaluated at 0, 100, 300, 700, 1500, 2500, and finally 3000 milliseconds.
+        assertEquals(7, evaluations.get());
+    }
+
+    @Test
+    public void shouldPollLessOnceAdaptivePolicyHasLearnedTimeToSatisfy() {
+        FakeTimeKeeper timeKeeper = new FakeTimeKeeper();
+        PollingPolicy policy = PollingPolicy.adaptive(
+                Duration.ofMillis(10), Duration.ofSeconds(1));
+        int untrained = evaluationsToShip(timeKeeper, policy);
+
+        for (int i = 0; i < 150; i++) {
+            evaluationsToShip(timeKeeper, policy);
+        }
+
+        int trained = evaluationsToShip(timeKeeper, policy);
+
+        assertTrue("Expected fewer than " + untrained + " evaluations, but was " + trained,
+                trained < untrained);
+        assertTrue(trained <= 5);
+    }
+
+    @Test
+    public void shouldDetectConditionPromptlyOnceAdaptivePolicyHasLearned() {
+        FakeTimeKeeper timeKeeper = new FakeTimeKeeper();
+        PollingPolicy policy = PollingPolicy.adaptive(
+                Duration.ofMillis(10), Duration.ofSeconds(1));
+
+        for (int i = 0; i < 150; i++) {
+            evaluationsToShip(timeKeeper, policy);
+        }
+
+        Instant start = timeKeeper.instant();
+        evaluationsToShip(timeKeeper, policy);
+
+        assertTrue(Duration.between(start, timeKeeper.instant())
+                .compareTo(Duration.ofMillis(3200 + 200)) <= 0);
+    }
+
+    @Test
+    public void shouldStillLearnWhenAdaptivePolicyIsJittered() {
+        FakeTimeKeeper timeKeeper = new FakeTimeKeeper();
+        PollingPolicy policy = PollingPolicy.adaptive(
+                Duration.ofMillis(10), Duration.ofSeconds(1)).withJitter(0.1);
+        long untrained = firstDelayToShip(policy);
+
+        for (int i = 0; i < 150; i++) {
+            evaluationsToShip(timeKeeper, policy);
+        }
+
+        long trained = firstDelayToShip(policy);
+
+        // Having learned that orders never ship within the first second, the first poll waits
+        // (nearly, given the jitter) as long as it may.
+        assertTrue("Expected a first delay of at least 900ms, but was " + trained + "ns",
+                trained >= 900 * MILLI);
+        assertTrue(untrained < 100 * MILLI);
+    }
+
+    private static long firstDelayToShip(PollingPolicy policy) {
+        return policy.forCondition("order is SHIPPED").nextDelayNanos(1, 0, 0);
+    }
+
+    /**
+     * Waits for an "order" which always ships 3.2 seconds after the wait begins.
+     */
+    private static int evaluationsToShip(FakeTimeKeeper timeKeeper, PollingPolicy policy) {
+        AtomicInteger evaluations = new AtomicInteger();
+        Instant shipsAt = timeKeeper.instant().plusMillis(3200);
+
+        new DefaultPollEvent<>(Condition.matchCallTo(() -> {
+            evaluations.incrementAndGet();
+            return timeKeeper.instant();
+        }, now -> !now.isBefore(shipsAt)).describedAs("order is SHIPPED"), timeKeeper)
+                .polling(policy)
+                .waitUpTo(10, SECONDS);
+
+        return evaluations.get();
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.redhat.synq.testing.rules.LogTestTime;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(JUnit4.class)
+public class PortEventTest {
+    @Rule
+    public LogTestTime logTestTime = new LogTestTime();
+
+    private static final String LOCALHOST = "127.0.0.1";
+    private static final Duration FIVE_SECONDS = Duration.ofSeconds(5);
+
+    private final List<ServerSocket> servers = new ArrayList<>();
+
+    @After
+    public void closeServers() throws IOException {
+        for (ServerSocket server : servers) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void shouldOccurImmediatelyIfPortIsListening() throws Exception {
+        int port = listen(0).getLocalPort();
+
+        InetSocketAddress address = Synq.expectListening(LOCALHOST, port).waitUpTo(FIVE_SECONDS);
+
+        assertEquals(port, address.getPort());
+    }
+
+    @Test
+    public void shouldOccurOncePortStartsListening() throws Exception {
+        int port = freePort();
+
+        PollScheduler.shared().schedule(() -> {
+            try {
+                listen(port);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, 100, TimeUnit.MILLISECONDS);
+
+        Synq.expectListening(LOCALHOST, port)
+                .pollingEvery(Duration.ofMillis(10))
+                .waitUpTo(FIVE_SECONDS);
+    }
+
+    @Test
+    public void shouldTimeOutPromptlyIfNothingListens() throws Exception {
+        int port = freePort();
+        long start = System.nanoTime();
+
+        try {
+            Synq.expectListening(LOCALHOST, port)
+                    .pollingEvery(Duration.ofSeconds(10))
+                    .waitUpTo(Duration.ofMillis(100));
+        } catch (TimeoutException expected) {
+        }
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void shouldTimeOutPromptlyWhileHostDoesNotResolve() throws Exception {
+        long start = System.nanoTime();
+
+        try {
+            Synq.expectListening("synq.invalid", 80)
+                    .pollingEvery(Duration.ofMillis(10))
+                    .waitUpTo(Duration.ofMillis(100));
+        } catch (TimeoutException expected) {
+        }
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void shouldWaitOnManyPortsWithOneThread() throws Exception {
+        List<CompletableFuture<InetSocketAddress>> waits = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            waits.add(Synq.expectListening(LOCALHOST, listen(0).getLocalPort())
+                    .waitAsync(FIVE_SECONDS));
+        }
+
+        for (CompletableFuture<InetSocketAddress> wait : waits) {
+            wait.get();
+        }
+
+        assertEquals(1, Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("synq-port-watcher"))
+                .count());
+    }
+
+    private ServerSocket listen(int port) throws IOException {
+        ServerSocket server = new ServerSocket(port, 50, InetAddress.getByName(LOCALHOST));
+
+        synchronized (servers) {
+            servers.add(server);
+        }
+
+        return server;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName(LOCALHOST))) {
+            return server.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import static java.time.temporal.ChronoUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.redhat.synq.ProgressCondition.Direction;
+import com.redhat.synq.testing.doubles.FakeTimeKeeper;
+import com.redhat.synq.testing.rules.LogTestTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class ProgressConditionTest {
+    @Rule
+    public LogTestTime logTestTime = new LogTestTime();
+
+    private final FakeTimeKeeper timeKeeper = new FakeTimeKeeper();
+    private final Instant start = timeKeeper.instant();
+    private final AtomicInteger evaluations = new AtomicInteger();
+
+    @Test
+    public void shouldPollNearPredictedCrossingOfIncreasingValue() {
+        // Counts up by 10 a second, so reaches 1000 after 100 seconds.
+        ProgressCondition<Long> condition = new ProgressCondition<>(
+                () -> secondsElapsed() * 10, Direction.INCREASING, 1000);
+
+        long result = new DefaultPollEvent<>(condition, timeKeeper)
+                .polling(condition.etaPolicy(Duration.ofMillis(100), Duration.ofSeconds(60)))
+                .waitUpTo(200, SECONDS);
+
+        assertTrue(result >= 1000);
+        assertTrue("Evaluated " + evaluations + " times", evaluations.get() <= 6);
+        assertTrue(Duration.between(start, timeKeeper.instant())
+                .compareTo(Duration.ofMillis(100_500)) <= 0);
+    }
+
+    @Test
+    public void shouldPollNearPredictedCrossingOfDecreasingValue() {
+        // Counts down from 500 by 5 a second, so reaches 0 after 100 seconds.
+        ProgressCondition<Long> condition = new ProgressCondition<>(
+                () -> 500 - secondsElapsed() * 5, Direction.DECREASING, 0);
+
+        long result = new DefaultPollEvent<>(condition, timeKeeper)
+                .polling(condition.etaPolicy(Duration.ofMillis(100), Duration.ofSeconds(60)))
+                .waitUpTo(200, SECONDS);
+
+        assertTrue(result <= 0);
+        assertTrue("Evaluated " + evaluations + " times", evaluations.get() <= 6);
+    }
+
+    @Test
+    public void shouldNotExtrapolateFurtherThanCapWhenStalled() {
+        ProgressCondition<Integer> condition = new ProgressCondition<>(() -> {
+            evaluations.incrementAndGet();
+            return 0;
+        }, Direction.INCREASING, 1);
+
+        try {
+            new DefaultPollEvent<>(condition, timeKeeper)
+                    .polling(condition.etaPolicy(Duration.ofMillis(100), Duration.ofSeconds(5)))
+                    .waitUpTo(20, SECONDS);
+        } catch (TimeoutException expected) {
+        }
+
+        // At 0 and 0.1 seconds, every 5 seconds thereafter, and finally at the deadline.
+        assertEquals(6, evaluations.get());
+    }
+
+    private long secondsElapsed() {
+        evaluations.incrementAndGet();
+
+        return Duration.between(start, timeKeeper.instant()).getSeconds();
+    }
+}
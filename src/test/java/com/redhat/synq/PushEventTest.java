@@ -0,0 +1,243 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.redhat.synq.testing.TestException;
+import com.redhat.synq.testing.rules.LogTestTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+@RunWith(JUnit4.class)
+public class PushEventTest {
+    @Rule
+    public LogTestTime logTestTime = new LogTestTime();
+
+    private static final Duration FIFTY_MILLIS = Duration.ofMillis(50);
+    private static final Duration ONE_SECOND = Duration.ofSeconds(1);
+
+    @Test
+    public void shouldOccurWithResultOfCompletionStage() {
+        CompletableFuture<String> stage = new CompletableFuture<>();
+
+        later(() -> stage.complete("done"));
+
+        assertEquals("done", Synq.expectCompletionOf(stage.thenApply(s -> s)).waitUpTo(ONE_SECOND));
+    }
+
+    @Test(expected = TestException.class)
+    public void shouldThrowUnwrappedExceptionOfCompletionStage() {
+        CompletableFuture<String> stage = new CompletableFuture<>();
+
+        later(() -> stage.completeExceptionally(new TestException()));
+
+        Synq.expectCompletionOf(stage.thenApply(s -> s)).waitUpTo(ONE_SECOND);
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void shouldTimeOutIfCompletionStageDoesNotComplete() {
+        Synq.expectCompletionOf(new CompletableFuture<>()).waitUpTo(FIFTY_MILLIS);
+    }
+
+    @Test
+    public void shouldOccurWithResultOfFuture() throws Exception {
+        FutureTask<String> future = new FutureTask<>(() -> "done");
+
+        later(future);
+
+        assertEquals("done", Synq.expectResultOf(future).waitUpTo(ONE_SECOND));
+    }
+
+    @Test
+    public void shouldCompleteAsyncWaitOnFuture() throws Exception {
+        FutureTask<String> future = new FutureTask<>(() -> "done");
+
+        later(future);
+
+        assertEquals("done", Synq.expectResultOf(future).waitAsync(ONE_SECOND).get());
+    }
+
+    @Test
+    public void shouldAddOneDependentToCompletableFutureHoweverManyAsyncWaits() throws Exception {
+        AtomicInteger dependents = new AtomicInteger();
+        CompletableFuture<String> future = new CompletableFuture<String>() {
+            @Override
+            public CompletableFuture<String> whenComplete(
+                    BiConsumer<? super String, ? super Throwable> action) {
+                dependents.incrementAndGet();
+                return super.whenComplete(action);
+            }
+        };
+        Event<String> result = Synq.expectResultOf(future);
+
+        for (int i = 0; i < 100; i++) {
+            result.waitAsync(ONE_SECOND).cancel(false);
+        }
+
+        future.complete("done");
+
+        assertEquals("done", result.waitAsync(ONE_SECOND).get());
+        assertEquals(1, dependents.get());
+    }
+
+    @Test
+    public void shouldTakeEachElementOfQueueInTurn() {
+        BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+        Event<String> element = Synq.expectElementFrom(queue);
+
+        later(() -> {
+            queue.add("first");
+            queue.add("second");
+        });
+
+        assertEquals("first", element.waitUpTo(ONE_SECOND));
+        assertEquals("second", element.waitUpTo(ONE_SECOND));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void shouldCompleteAsyncWaitOnQueue() throws Exception {
+        BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+
+        later(() -> queue.add("element"));
+
+        assertEquals("element", Synq.expectElementFrom(queue).waitAsync(ONE_SECOND).get());
+    }
+
+    @Test
+    public void shouldNotLoseElementTakenByCancelledAsyncWait() throws Exception {
+        BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+
+        Synq.expectElementFrom(queue).waitAsync(ONE_SECOND).cancel(true);
+        queue.add("element");
+
+        assertEquals("element", Synq.expectElementFrom(queue).waitUpTo(ONE_SECOND));
+    }
+
+    @Test
+    public void shouldNotLoseElementTakenByBranchWhichLostTheRace() throws Exception {
+        BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+
+        for (int i = 0; i < 20; i++) {
+            EventListener<String> listener = new EventListener<>();
+            listener.trigger("listener");
+            queue.add("element");
+
+            String result = Synq.expectElementFrom(queue).or(listener).waitUpTo(ONE_SECOND);
+
+            if (!result.equals("element")) {
+                assertEquals("element", queue.poll(1, TimeUnit.SECONDS));
+            }
+
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+    @Test
+    public void shouldGiveBackElementToHeadOfDequeThroughWrappers() throws Exception {
+        BlockingDeque<String> deque = new LinkedBlockingDeque<>();
+
+        for (int i = 0; i < 20; i++) {
+            EventListener<String> listener = new EventListener<>();
+            listener.trigger("listener");
+            deque.add("first");
+            deque.add("second");
+
+            String result = new ForwardingEvent<>(Synq.expectElementFrom(deque))
+                    .or(listener)
+                    .waitUpTo(ONE_SECOND);
+
+            if (!result.equals("first")) {
+                Synq.expect(() -> deque.size() == 2).waitUpTo(ONE_SECOND);
+                assertEquals("first", deque.take());
+            }
+
+            assertEquals("second", deque.take());
+            assertTrue(deque.isEmpty());
+        }
+    }
+
+    @Test(expected = SynqException.class)
+    public void shouldFailLoudlyIfQueueHasNoRoomToGiveBackElement() {
+        BlockingQueue<String> queue = new ArrayBlockingQueue<>(1);
+        queue.add("newer");
+
+        new QueueEvent<>(queue).giveBack("taken");
+    }
+
+    @Test
+    public void shouldComposeWithOtherEvents() {
+        BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+        CompletableFuture<String> never = new CompletableFuture<>();
+
+        later(() -> queue.add("element"));
+
+        assertEquals("element", Synq.expectCompletionOf(never)
+                .or(Synq.expectElementFrom(queue))
+                .waitUpTo(ONE_SECOND));
+    }
+
+    @Test
+    public void shouldFailIfFailEventOccursFirst() {
+        BlockingQueue<String> errors = new LinkedBlockingQueue<>();
+        CompletableFuture<String> never = new CompletableFuture<>();
+
+        later(() -> errors.add("error"));
+
+        try {
+            Synq.expectCompletionOf(never)
+                    .failIf(Synq.expectElementFrom(errors))
+                    .waitUpTo(ONE_SECOND);
+            fail("Expected fail event to occur");
+        } catch (MultiEventException e) {
+            assertThat(e.getCause(), instanceOf(AssertionError.class));
+        }
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void shouldCompleteAsyncWaitExceptionallyOnTimeout() throws Exception {
+        Synq.expectElementFrom(new LinkedBlockingQueue<>()).waitAsync(FIFTY_MILLIS).get();
+    }
+
+    private static void later(Runnable action) {
+        PollScheduler.shared().schedule(action, 20, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.redhat.synq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.redhat.synq.testing.rules.LogTestTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class QuantileSketchTest {
+    @Rule
+    public LogTestTime logTestTime = new LogTestTime();
+
+    private static final long MILLI = 1_000_000;
+
+    @Test
+    public void shouldKeepWholeWindowOfValuesOnceFull() {
+        QuantileSketch sketch = new QuantileSketch(32);
+
+        // Every value in a bucket of its own, so none would survive halving the buckets.
+        for (int i = 0; i < 40; i++) {
+            sketch.record((long) (MILLI * Math.pow(1.1, i)));
+        }
+
+        assertEquals(32, sketch.count());
+    }
+
+    @Test
+    public void shouldForgetValuesOlderThanWindow() {
+        QuantileSketch sketch = new QuantileSketch(32);
+
+        for (int i = 0; i < 32; i++) {
+            sketch.record(1000 * MILLI);
+        }
+
+        for (int i = 0; i < 32; i++) {
+            sketch.record(10 * MILLI);
+        }
+
+        long estimate = sketch.quantile(0.99);
+
+        assertTrue("Expected about 10ms, but was " + estimate + "ns",
+                Math.abs(estimate - 10 * MILLI) <= 10 * MILLI * QuantileSketch.RELATIVE_ACCURACY);
+    }
+}
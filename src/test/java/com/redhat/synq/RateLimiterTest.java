@@ -0,0 +1,171 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.redhat.synq.testing.rules.LogTestTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class RateLimiterTest {
+    @Rule
+    public LogTestTime logTestTime = new LogTestTime();
+
+    @Rule
+    public TestName testName = new TestName();
+
+    private static final Duration ONE_MILLI = Duration.ofMillis(1);
+
+    private AtomicInteger evaluations = new AtomicInteger();
+
+    @Test
+    public void shouldLimitRateOfEvaluationsAcrossAllWaiters() throws Exception {
+        RateLimiter limiter = RateLimiter.named(testName.getMethodName()).limitTo(20, 0);
+        List<Thread> waiters = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            Thread waiter = new Thread(() -> waitForNeverMetCondition(
+                    new DefaultPollEvent<>(neverMet()).pollingEvery(ONE_MILLI)
+                            .limitedBy(testName.getMethodName()),
+                    Duration.ofMillis(500)));
+            waiters.add(waiter);
+            waiter.start();
+        }
+
+        for (Thread waiter : waiters) {
+            waiter.join();
+        }
+
+        // A burst of 20, then 20 per second for half a second.
+        assertTrue("Evaluated " + evaluations + " times", evaluations.get() <= 35);
+        assertTrue(limiter.getThrottledCount() > 0);
+    }
+
+    @Test
+    public void shouldCapEvaluationsInFlight() throws Exception {
+        RateLimiter.named(testName.getMethodName()).limitTo(Double.POSITIVE_INFINITY, 2);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<Thread> waiters = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            Thread waiter = new Thread(() -> waitForNeverMetCondition(
+                    new ThreadedPollEvent<>(Condition.matchCallTo(() -> {
+                        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                        Thread.sleep(10);
+                        inFlight.decrementAndGet();
+                        return false;
+                    }, b -> b)).pollingEvery(ONE_MILLI).limitedBy(testName.getMethodName()),
+                    Duration.ofMillis(200)));
+            waiters.add(waiter);
+            waiter.start();
+        }
+
+        for (Thread waiter : waiters) {
+            waiter.join();
+        }
+
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    public void shouldTimeOutRatherThanWaitPastDeadlineForPermit() {
+        RateLimiter.named(testName.getMethodName()).limitTo(1, 0);
+        long start = System.nanoTime();
+
+        waitForNeverMetCondition(new DefaultPollEvent<>(neverMet()).pollingEvery(ONE_MILLI)
+                .limitedBy(testName.getMethodName()), Duration.ofMillis(200));
+
+        assertEquals(1, evaluations.get());
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(600));
+    }
+
+    @Test
+    public void shouldLimitAsynchronousWaits() throws Exception {
+        RateLimiter.named(testName.getMethodName()).limitTo(20, 0);
+        List<CompletableFuture<Boolean>> waits = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            waits.add(new ThreadedPollEvent<>(neverMet()).pollingEvery(ONE_MILLI)
+                    .limitedBy(testName.getMethodName())
+                    .waitAsync(Duration.ofMillis(500)));
+        }
+
+        for (CompletableFuture<Boolean> wait : waits) {
+            try {
+                wait.get();
+            } catch (ExecutionException expected) {
+            }
+        }
+
+        assertTrue("Evaluated " + evaluations + " times", evaluations.get() <= 35);
+    }
+
+    @Test
+    public void shouldCountPollHeldBackFromAsynchronousWaitOnce() throws Exception {
+        RateLimiter limiter = RateLimiter.named(testName.getMethodName())
+                .limitTo(Double.POSITIVE_INFINITY, 1);
+
+        assertTrue(limiter.acquire(0));
+
+        CompletableFuture<Boolean> wait = new DefaultPollEvent<>(neverMet())
+                .pollingEvery(ONE_MILLI)
+                .limitedBy(limiter)
+                .waitAsync(Duration.ofMillis(300));
+
+        // The wait retries every millisecond or so meanwhile, but it is all the same poll.
+        Thread.sleep(100);
+        limiter.release();
+
+        try {
+            wait.get();
+        } catch (ExecutionException expected) {
+        }
+
+        assertTrue(evaluations.get() > 0);
+        assertEquals(1, limiter.getThrottledCount());
+    }
+
+    private Condition<Boolean> neverMet() {
+        return Condition.matchCallTo(() -> evaluations.incrementAndGet() < 0, b -> b);
+    }
+
+    private static void waitForNeverMetCondition(Event<?> event, Duration duration) {
+        try {
+            event.waitUpTo(duration);
+        } catch (TimeoutException expected) {
+        }
+    }
+}
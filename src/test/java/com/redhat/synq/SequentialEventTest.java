@@ -20,8 +20,12 @@
 package com.redhat.synq;
 
 import static java.time.temporal.ChronoUnit.MILLIS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.mock;
@@ -39,6 +43,8 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 @RunWith(JUnit4.class)
 public class SequentialEventTest {
@@ -178,4 +184,39 @@ public class SequentialEventTest {
         additional.first.waitUpTo(TEN_MILLIS);
         verify(action).run();
     }
+
+    @Test
+    public void shouldFlattenChainedSequencesIntoOnePipeline() {
+        List<Integer> ran = new ArrayList<>();
+        Event<Object> event = new FakeEvent<>(TEN_MILLIS);
+
+        for (int i = 0; i < 10; i++) {
+            int step = i;
+            event = event.after(() -> ran.add(step));
+        }
+
+        Event<Object> pipeline = new FakeEvent<>(TEN_MILLIS).andThenExpect(event);
+
+        assertEquals(12, ((SequentialEvent<Object>) pipeline).stages().length);
+
+        pipeline.waitUpTo(ONE_HUNDRED_MILLIS);
+
+        assertEquals(10, ran.size());
+    }
+
+    @Test
+    public void shouldOnlyWrapTimeoutOfAnInnerStageOnce() {
+        Event<Void> event = new NeverOccurringEvent().describedAs("a test event")
+                .after(() -> {})
+                .after(() -> {});
+
+        try {
+            new FakeEvent<>(TEN_MILLIS).andThenExpect(event).waitUpTo(FIFTY_MILLIS);
+
+            fail("Pipeline did not time out.");
+        } catch (TimeoutException e) {
+            assertThat(e.getMessage(), containsString("a test event"));
+            assertNull(e.getCause());
+        }
+    }
 }
@@ -0,0 +1,132 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.redhat.synq.testing.TestException;
+import com.redhat.synq.testing.doubles.FakeTimeKeeper;
+import com.redhat.synq.testing.rules.LogTestTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class SharedCallableTest {
+    @Rule
+    public LogTestTime logTestTime = new LogTestTime();
+
+    private FakeTimeKeeper timeKeeper = new FakeTimeKeeper();
+    private AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    public void shouldLetConcurrentCallersShareOneCallInFlight() throws Exception {
+        Callable<Integer> shared = Synq.shared(() -> {
+            Thread.sleep(100);
+            return calls.incrementAndGet();
+        }, Duration.ofSeconds(1));
+        ExecutorService callers = Executors.newFixedThreadPool(10);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < 10; i++) {
+                results.add(callers.submit(shared));
+            }
+
+            for (Future<Integer> result : results) {
+                assertEquals(1, (int) result.get());
+            }
+        } finally {
+            callers.shutdown();
+        }
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void shouldReuseResultUntilItIsOlderThanTimeToLive() throws Exception {
+        Callable<Integer> shared = new SharedCallable<>(calls::incrementAndGet,
+                Duration.ofSeconds(1), timeKeeper);
+
+        assertEquals(1, (int) shared.call());
+        timeKeeper.sleepFor(Duration.ofMillis(999));
+        assertEquals(1, (int) shared.call());
+        timeKeeper.sleepFor(Duration.ofMillis(1));
+        assertEquals(2, (int) shared.call());
+    }
+
+    @Test
+    public void shouldNotCacheFailures() throws Exception {
+        Callable<Integer> shared = new SharedCallable<>(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new TestException();
+            }
+
+            return calls.get();
+        }, Duration.ofSeconds(1), timeKeeper);
+
+        try {
+            shared.call();
+            fail("Expected TestException");
+        } catch (TestException expected) {
+        }
+
+        assertEquals(2, (int) shared.call());
+    }
+
+    @Test
+    public void shouldLetManyWaitersPollOnceBetweenThem() throws Exception {
+        Callable<Integer> shared = Synq.shared(calls::incrementAndGet, Duration.ofMillis(100));
+        List<Thread> waiters = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            Thread waiter = new Thread(() -> {
+                try {
+                    Synq.expectCallTo(shared, c -> false)
+                            .pollingEvery(Duration.ofMillis(20))
+                            .waitUpTo(Duration.ofMillis(300));
+                } catch (TimeoutException expected) {
+                }
+            });
+            waiters.add(waiter);
+            waiter.start();
+        }
+
+        for (Thread waiter : waiters) {
+            waiter.join();
+        }
+
+        // 10 waiters polling every 20ms would call about 150 times without sharing.
+        assertTrue("Called " + calls + " times", calls.get() <= 5);
+    }
+}
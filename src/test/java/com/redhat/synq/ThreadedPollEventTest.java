@@ -0,0 +1,123 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.redhat.synq.testing.rules.LogTestTime;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(JUnit4.class)
+public class ThreadedPollEventTest {
+    @Rule
+    public LogTestTime logTestTime = new LogTestTime();
+
+    private static final Duration TEN_MILLIS = Duration.ofMillis(10);
+    private static final Duration ONE_SECOND = Duration.ofSeconds(1);
+
+    private PollScheduler scheduler = new PollScheduler(2, Duration.ofMillis(100));
+    private ExecutorService serial = scheduler.newSerialExecutor();
+    private List<Thread> evaluatedOn = new CopyOnWriteArrayList<>();
+
+    @After
+    public void shutdownScheduler() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void shouldEvaluateAlreadyMetConditionOnTheWaitingThread() {
+        new ThreadedPollEvent<>(Condition.matchCallTo(this::recordThread, b -> b),
+                TimeKeeper.systemTimeKeeper(), serial)
+                .waitUpTo(ONE_SECOND);
+
+        assertEquals(1, evaluatedOn.size());
+        assertSame(Thread.currentThread(), evaluatedOn.get(0));
+    }
+
+    @Test
+    public void shouldMoveEvaluationToPollerOnceEvaluationIsSlow() {
+        new ThreadedPollEvent<>(Condition.matchCallTo(() -> {
+            recordThread();
+            Thread.sleep(20);
+            return evaluatedOn.size() >= 3;
+        }, b -> b), TimeKeeper.systemTimeKeeper(), serial)
+                .pollingEvery(TEN_MILLIS)
+                .waitUpTo(ONE_SECOND);
+
+        assertSame(Thread.currentThread(), evaluatedOn.get(0));
+        assertNotSame(Thread.currentThread(), evaluatedOn.get(1));
+        assertNotSame(Thread.currentThread(), evaluatedOn.get(2));
+    }
+
+    @Test
+    public void shouldNotEvaluateOnTheWaitingThreadWhileSerialExecutorIsBusy() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> busy = serial.submit(() -> {
+            release.await(1, TimeUnit.SECONDS);
+            return null;
+        });
+
+        scheduler.schedule(release::countDown, 50, TimeUnit.MILLISECONDS);
+
+        new ThreadedPollEvent<>(Condition.matchCallTo(this::recordThread, b -> b),
+                TimeKeeper.systemTimeKeeper(), serial)
+                .waitUpTo(ONE_SECOND);
+
+        assertTrue(busy.isDone());
+        assertNotSame(Thread.currentThread(), evaluatedOn.get(0));
+    }
+
+    @Test
+    public void shouldRunTasksSubmittedWhileClaimedOnceReleased() throws Exception {
+        SerialExecutor executor = (SerialExecutor) serial;
+
+        assertTrue(executor.tryClaim());
+
+        Future<Boolean> queued = executor.submit(this::recordThread);
+        Thread.sleep(20);
+
+        assertTrue(evaluatedOn.isEmpty());
+
+        executor.release();
+
+        assertTrue(queued.get(1, TimeUnit.SECONDS));
+    }
+
+    private boolean recordThread() {
+        evaluatedOn.add(Thread.currentThread());
+        return true;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.redhat.synq.testing.doubles.FakeTimeKeeper;
+import com.redhat.synq.testing.rules.LogTestTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(JUnit4.class)
+public class TimeKeeperTest {
+    @Rule
+    public LogTestTime logTestTime = new LogTestTime();
+
+    @Test
+    public void shouldDeriveNanoTimeFromInstantByDefault() {
+        TimeKeeper timeKeeper = new FakeTimeKeeper();
+        long start = timeKeeper.nanoTime();
+
+        timeKeeper.parkNanos(TimeUnit.MILLISECONDS.toNanos(1500));
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1500), timeKeeper.nanoTime() - start);
+    }
+
+    @Test
+    public void shouldParkSystemTimeKeeperForAtLeastTheRequestedTime() {
+        TimeKeeper timeKeeper = TimeKeeper.systemTimeKeeper();
+        long start = System.nanoTime();
+
+        timeKeeper.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    public void shouldThrowAndClearInterruptedStatusIfInterruptedWhileParked() {
+        Thread.currentThread().interrupt();
+
+        try {
+            TimeKeeper.systemTimeKeeper().sleepFor(Duration.ofSeconds(1));
+        } catch (SleepInterruptedException e) {
+            assertFalse(Thread.currentThread().isInterrupted());
+            return;
+        }
+
+        throw new AssertionError("Expected SleepInterruptedException");
+    }
+}
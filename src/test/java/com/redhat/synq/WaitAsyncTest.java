@@ -0,0 +1,226 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import static java.time.temporal.ChronoUnit.MILLIS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import com.redhat.synq.testing.TestException;
+import com.redhat.synq.testing.doubles.NeverMetCondition;
+import com.redhat.synq.testing.rules.LogTestTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JUnit4.class)
+public class WaitAsyncTest {
+    @Rule
+    public LogTestTime logTestTime = new LogTestTime();
+
+    private static final Duration TEN_MILLIS = Duration.ofMillis(10);
+    private static final Duration FIFTY_MILLIS = Duration.ofMillis(50);
+    private static final Duration ONE_SECOND = Duration.ofSeconds(1);
+
+    @Test
+    public void shouldCompleteDefaultPollEventOnceConditionIsMet() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<Integer> future = new DefaultPollEvent<>(
+                Condition.matchCallTo(calls::incrementAndGet, i -> i >= 3))
+                .pollingEvery(TEN_MILLIS)
+                .waitAsync(ONE_SECOND);
+
+        assertEquals(3, (int) future.get());
+    }
+
+    @Test
+    public void shouldCompleteThreadedPollEventOnceConditionIsMet() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<Integer> future = Synq.expectCallTo(calls::incrementAndGet, i -> i >= 3)
+                .pollingEvery(TEN_MILLIS)
+                .waitAsync(ONE_SECOND);
+
+        assertEquals(3, (int) future.get());
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyWithTimeoutIfConditionIsNotMetInTime() {
+        CompletableFuture<Object> future = new NeverMetCondition().asEvent()
+                .pollingEvery(TEN_MILLIS)
+                .waitAsync(FIFTY_MILLIS);
+
+        assertThat(causeOf(future), instanceOf(TimeoutException.class));
+    }
+
+    @Test
+    public void shouldStopPollingWhenCancelled() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<Integer> future = Synq.expectCallTo(calls::incrementAndGet, i -> false)
+                .pollingEvery(TEN_MILLIS)
+                .waitAsync(ONE_SECOND);
+
+        Thread.sleep(50);
+        future.cancel(true);
+        Thread.sleep(20);
+
+        int callsAfterCancel = calls.get();
+
+        Thread.sleep(100);
+
+        assertEquals(callsAfterCancel, calls.get());
+    }
+
+    @Test
+    public void shouldCompleteEventListenerWhenTriggered() throws Exception {
+        EventListener<String> listener = new EventListener<>();
+
+        CompletableFuture<String> future = listener.waitAsync(ONE_SECOND);
+
+        assertFalse(future.isDone());
+
+        listener.trigger("synq");
+
+        assertEquals("synq", future.get());
+    }
+
+    @Test
+    public void shouldAcceptDurationsTooLongToCountInNanoseconds() throws Exception {
+        EventListener<String> listener = new EventListener<>();
+        CompletableFuture<String> future = listener.waitAsync(Duration.ofMillis(Long.MAX_VALUE));
+
+        listener.trigger("triggered");
+
+        assertEquals("triggered", future.get());
+    }
+
+    @Test
+    public void shouldForgetAsyncWaitsOnceTheyAreDone() throws Exception {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        Followers<String> followers = new Followers<>(source);
+
+        for (int i = 0; i < 3; i++) {
+            followers.follow().cancel(false);
+        }
+
+        CompletableFuture<String> follower = followers.follow();
+
+        assertEquals(1, followers.pending());
+
+        source.complete("done");
+
+        assertEquals("done", follower.get());
+        assertEquals("done", followers.follow().get());
+        assertEquals(0, followers.pending());
+    }
+
+    @Test
+    public void shouldCompleteMultiEventWithFirstBranchAndCancelTheOthers() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        EventListener<Integer> listener = new EventListener<>();
+
+        CompletableFuture<Integer> future = Synq.expectCallTo(calls::incrementAndGet, i -> false)
+                .pollingEvery(TEN_MILLIS)
+                .or(listener)
+                .waitAsync(ONE_SECOND);
+
+        listener.trigger(-1);
+
+        assertEquals(-1, (int) future.get());
+
+        Thread.sleep(20);
+        int callsAfterTrigger = calls.get();
+        Thread.sleep(100);
+
+        assertEquals(callsAfterTrigger, calls.get());
+    }
+
+    @Test
+    public void shouldCompleteFailEventExceptionallyIfItOccurs() {
+        CompletableFuture<Object> future = Synq.expect(new NeverMetCondition())
+                .failIf(Condition.match("synq", s -> true))
+                .throwing(new TestException())
+                .pollingEvery(TEN_MILLIS)
+                .waitAsync(ONE_SECOND);
+
+        assertThat(causeOf(future), instanceOf(MultiEventException.class));
+        assertThat(causeOf(future).getCause(), instanceOf(TestException.class));
+    }
+
+    @Test
+    public void shouldCompleteFailEventNormallyIfItTimesOut() throws Exception {
+        CompletableFuture<Object> future = Synq.failIf(new NeverMetCondition())
+                .pollingEvery(TEN_MILLIS)
+                .waitAsync(FIFTY_MILLIS);
+
+        assertNull(future.get());
+    }
+
+    @Test
+    public void shouldRunActionsAndAwaitStagesOfSequentialEventsInOrder() throws Exception {
+        EventListener<String> first = new EventListener<>();
+        EventListener<String> second = new EventListener<>();
+
+        CompletableFuture<String> future = Synq.after(() -> first.trigger("first"))
+                .expect(first)
+                .andThenExpect(second)
+                .after(() -> second.trigger("second"))
+                .waitAsync(ONE_SECOND);
+
+        assertEquals("second", future.get());
+    }
+
+    @Test
+    public void shouldTimeoutSequentialEventsWithTheirOwnDescription() {
+        CompletableFuture<Object> future = Synq.after(() -> {})
+                .expect(new NeverMetCondition())
+                .pollingEvery(TEN_MILLIS)
+                .describedAs("a test event")
+                .waitAsync(FIFTY_MILLIS);
+
+        assertThat(causeOf(future), instanceOf(TimeoutException.class));
+    }
+
+    private static Throwable causeOf(CompletableFuture<?> future) {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+
+        fail("Future completed normally.");
+        return null;
+    }
+}
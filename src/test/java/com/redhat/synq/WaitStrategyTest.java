@@ -0,0 +1,124 @@
+/*
+ Copyright 2014 Red Hat, Inc. and/or its affiliates.
+
+ This file is part of synq.
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.redhat.synq;
+
+import static java.time.temporal.ChronoUnit.MILLIS;
+import static java.time.temporal.ChronoUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.redhat.synq.testing.rules.LogTestTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RunWith(Parameterized.class)
+public class WaitStrategyTest {
+    @Rule
+    public LogTestTime logTestTime = new LogTestTime();
+
+    private final WaitStrategy waitStrategy;
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> strategies() {
+        return Arrays.asList(new Object[][] {
+                {WaitStrategy.busySpin()},
+                {WaitStrategy.yielding()},
+                {WaitStrategy.spinThenPark(100)},
+                {WaitStrategy.parking()},
+                {WaitStrategy.sleeping()}});
+    }
+
+    public WaitStrategyTest(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+
+    @Test
+    public void shouldReturnTrueOnceSignalIsSetByAnotherThread() throws Exception {
+        Signal signal = new Signal();
+        Thread setter = new Thread(() -> {
+            sleep(20);
+            signal.set();
+        });
+
+        setter.start();
+
+        assertTrue(signal.await(waitStrategy, TimeUnit.SECONDS.toNanos(1)));
+        setter.join();
+    }
+
+    @Test
+    public void shouldReturnFalseOnceTimeoutElapses() {
+        long start = System.nanoTime();
+
+        assertFalse(waitStrategy.await(() -> false, TimeUnit.MILLISECONDS.toNanos(20)));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test(expected = SleepInterruptedException.class)
+    public void shouldThrowSleepInterruptedExceptionIfInterrupted() {
+        Thread.currentThread().interrupt();
+
+        waitStrategy.pause(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void shouldWakeEventListenerWaitingWithStrategy() {
+        EventListener<String> listener = new EventListener<String>().waitingWith(waitStrategy);
+        new Thread(() -> {
+            sleep(20);
+            listener.trigger("triggered");
+        }).start();
+
+        assertEquals("triggered", listener.waitUpTo(1, SECONDS));
+    }
+
+    @Test
+    public void shouldWaitForMultiEventBranchesWithStrategy() {
+        AtomicBoolean met = new AtomicBoolean();
+        new Thread(() -> {
+            sleep(20);
+            met.set(true);
+        }).start();
+
+        assertTrue(new MultiEvent<>(
+                Synq.expectCallTo(met::get, m -> m).pollingEvery(5, MILLIS),
+                Synq.expectCallTo(() -> false, m -> m).pollingEvery(5, MILLIS))
+                .waitingWith(waitStrategy)
+                .waitUpTo(1, SECONDS));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+}